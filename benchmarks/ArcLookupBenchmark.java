@@ -0,0 +1,113 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.SegmentTable;
+
+import java.util.ArrayList;
+
+/**
+ * Micro-benchmark comparing the cost of looking up the executing arc of a spline with the old
+ * linear scan over a boxed ArrayList, a binary search and a forward-only cursor.
+ * Run its main method on a desktop JVM or on the Control Hub, results are printed in ns per lookup.
+ */
+public class ArcLookupBenchmark {
+    /**
+     * Amount of spline arcs to benchmark
+     */
+    private static final int[] ARC_COUNTS = {3, 100, 10000};
+
+    /**
+     * Lookups per measured round, each round sweeps once through the whole spline
+     */
+    private static final int LOOKUPS = 200000;
+
+    /**
+     * Rounds to run before measuring so that the JIT has compiled every method
+     */
+    private static final int WARMUP_ROUNDS = 20;
+
+    /**
+     * Rounds to measure
+     */
+    private static final int MEASURED_ROUNDS = 20;
+
+    /**
+     * Keeps the results alive so the lookups are not optimized away
+     */
+    private static long sink;
+
+    public static void main(String[] args){
+        System.out.println("arcs\tlinear(ns)\tbinary(ns)\tcursor(ns)");
+        for(int arcs : ARC_COUNTS){
+            double[] endTimes = new double[arcs];
+            ArrayList<Double> boxedTimes = new ArrayList<>();
+            for(int i=0;i<arcs;i++){
+                endTimes[i] = (i+1)*0.01;
+                boxedTimes.add(endTimes[i]);
+            }
+            SegmentTable table = new SegmentTable(endTimes);
+            double step = endTimes[arcs-1]/LOOKUPS;
+
+            double linear = measure(new Lookup() {
+                public long run(){
+                    long sum = 0;
+                    for(int i=0;i<LOOKUPS;i++)
+                        sum += linearScan(boxedTimes, i*step);
+                    return sum;
+                }
+            });
+            double binary = measure(new Lookup() {
+                public long run(){
+                    long sum = 0;
+                    for(int i=0;i<LOOKUPS;i++)
+                        sum += table.find(i*step);
+                    return sum;
+                }
+            });
+            double cursor = measure(new Lookup() {
+                public long run(){
+                    SegmentTable.Cursor c = table.cursor();
+                    long sum = 0;
+                    for(int i=0;i<LOOKUPS;i++)
+                        sum += c.seek(i*step);
+                    return sum;
+                }
+            });
+            System.out.printf("%d\t%.2f\t\t%.2f\t\t%.2f%n", arcs, linear, binary, cursor);
+        }
+        System.out.println("(checksum "+sink+")");
+    }
+
+    /**
+     * The arc lookup SplinePath used before the segment table
+     * @param times the boxed end times of each arc
+     * @param currentTime the time into the spline
+     * @return the executing arc, or -1
+     */
+    private static int linearScan(ArrayList<Double> times, double currentTime){
+        for(int i=0;i<times.size();i++)
+            if(currentTime < times.get(i))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Warm up and time a lookup strategy
+     * @param lookup the strategy to time
+     * @return the mean time per lookup in nanoseconds
+     */
+    private static double measure(Lookup lookup){
+        for(int i=0;i<WARMUP_ROUNDS;i++)
+            sink += lookup.run();
+        long start = System.nanoTime();
+        for(int i=0;i<MEASURED_ROUNDS;i++)
+            sink += lookup.run();
+        return (double)(System.nanoTime()-start)/((long)MEASURED_ROUNDS*LOOKUPS);
+    }
+
+    /**
+     * One round of lookups
+     */
+    private interface Lookup {
+        long run();
+    }
+}
@@ -0,0 +1,89 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDController;
+
+/**
+ * Long-run check that PIDController.update(...) keeps a constant cost and constant memory.
+ * Runs a million updates in blocks and prints the time per update and the heap in use after each
+ * block; both should stay flat instead of growing with the amount of updates.
+ * Run its main method on a desktop JVM or on the Control Hub.
+ */
+public class PIDControllerLongRun {
+    /**
+     * Total amount of updates
+     */
+    private static final int UPDATES = 1000000;
+
+    /**
+     * Updates per reported block
+     */
+    private static final int BLOCK = 100000;
+
+    /**
+     * Allowed growth of the slowest block over the first one before the run is reported as failing
+     */
+    private static final double MAX_SLOWDOWN = 3;
+
+    /**
+     * Allowed growth of the heap in use over the whole run before it is reported as failing (bytes)
+     */
+    private static final long MAX_HEAP_GROWTH = 1 << 20;
+
+    /**
+     * Keeps the outputs alive so the updates are not optimized away
+     */
+    private static double sink;
+
+    public static void main(String[] args){
+        PIDController controller = new PIDController(0.5, 0.01, 0.1, 64);
+
+        // Warm up so the first block is not dominated by the JIT
+        run(controller, BLOCK);
+        long startHeap = usedHeap();
+
+        System.out.println("updates\tns/update\theap(KiB)");
+        double firstBlock = 0;
+        double slowestBlock = 0;
+        long heap = startHeap;
+        for(int done=BLOCK;done<=UPDATES;done+=BLOCK){
+            long start = System.nanoTime();
+            run(controller, BLOCK);
+            double perUpdate = (double)(System.nanoTime()-start)/BLOCK;
+            heap = usedHeap();
+
+            if(done == BLOCK)
+                firstBlock = perUpdate;
+            slowestBlock = Math.max(slowestBlock, perUpdate);
+            System.out.printf("%d\t%.1f\t\t%d%n", done, perUpdate, heap/1024);
+        }
+
+        boolean constantTime = slowestBlock <= MAX_SLOWDOWN*firstBlock;
+        boolean constantMemory = heap - startHeap <= MAX_HEAP_GROWTH;
+        System.out.println("constant time: "+constantTime+", constant memory: "+constantMemory+" (checksum "+sink+")");
+        if(!constantTime || !constantMemory)
+            System.exit(1);
+    }
+
+    /**
+     * Feed the controller a slowly varying target and a noisy state
+     * @param controller the controller to update
+     * @param updates the amount of updates
+     */
+    private static void run(PIDController controller, int updates){
+        for(int i=0;i<updates;i++){
+            long target = (long)(1000*Math.sin(i*1E-4));
+            long state = target + (i*7919)%41 - 20;
+            sink += controller.update(target, state);
+        }
+    }
+
+    /**
+     * Get the heap in use after a garbage collection
+     * @return the used heap (bytes)
+     */
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory()-runtime.freeMemory();
+    }
+}
@@ -0,0 +1,190 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.FollowerEngine;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Line;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Localizer;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Path;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PathSequence;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Pose;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Robot;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Turn;
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.Drivetrain;
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.DrivetrainSymmetry;
+import org.firstinspires.ftc.teamcode.auto.support.simulationsupport.SimulatedClock;
+import org.firstinspires.ftc.teamcode.auto.support.simulationsupport.SimulatedDiffyDrive;
+import org.firstinspires.ftc.teamcode.auto.support.simulationsupport.SimulatedMotor;
+import org.firstinspires.ftc.teamcode.auto.support.simulationsupport.SimulatedTankDrive;
+
+import java.util.ArrayList;
+
+/**
+ * Follows a full PathSequence headless on simulated tank and diffy drivetrains, printing how much
+ * faster than real time it ran and where the robot ended up. Each drivetrain is run twice to show
+ * the simulation is repeatable, and the benchmark fails if any run ends too far from the planned
+ * pose. Run its main method on any desktop JVM, no robot is needed.
+ */
+public class SimulatedFollowBenchmark {
+    /**
+     * Simulated time of one follower cycle (s)
+     */
+    private static final double LOOP_PERIOD = 0.005;
+
+    /**
+     * Physics step (s)
+     */
+    private static final double STEP_PERIOD = 0.0005;
+
+    /**
+     * Wheel radius (m)
+     */
+    private static final double WHEEL_RADIUS = 0.048;
+
+    /**
+     * Motor radians per wheel radian of the tank drives. Path.convertForStandardDrivetrain(...) and
+     * TankKinematics command a motor velocity of v/(2 pi r), so the simulated wheels are geared to
+     * match what the follower assumes: 2 pi wheel radians per motor radian
+     */
+    private static final double TANK_GEAR_RATIO = 1/(2*3.14159);
+
+    /**
+     * Distance between the left and right wheels (m)
+     */
+    private static final double TRACK_WIDTH = 0.35;
+
+    /**
+     * Mass of the robot (kg)
+     */
+    private static final double MASS = 12;
+
+    /**
+     * Pose the paths end at: 1 m ahead of the start, facing left
+     */
+    private static final double PLANNED_X = 1, PLANNED_Y = 0, PLANNED_HEADING = Math.PI/2;
+
+    /**
+     * Largest distance from the planned end position a run may stop at (m)
+     */
+    private static final double POSITION_TOLERANCE = 0.05;
+
+    /**
+     * Largest difference from the planned end heading a run may stop at (rad)
+     */
+    private static final double HEADING_TOLERANCE = 0.05;
+
+    /**
+     * Amount of runs that ended outside the tolerances
+     */
+    private static int failures = 0;
+
+    public static void main(String[] args){
+        Path.setSymmetryState(DrivetrainSymmetry.SYMMETRICAL);
+        Path.setTrackWidth(TRACK_WIDTH);
+        // The general Kalman coefficients estimate velocity in other units than the target, so the
+        // follower drives about twice as far; see Robot.velocityFilterUnbiased
+        FollowerEngine.setUnbiasedVelocityFilter(true);
+
+        System.out.printf("planned end pose: x %.4f, y %.4f, heading %.4f%n", PLANNED_X, PLANNED_Y, PLANNED_HEADING);
+        System.out.println("drivetrain\trun\tsim(s)\twall(ms)\tspeedup\tx(m)\ty(m)\theading(rad)\terror(m)\terror(rad)");
+        for(int run=0;run<2;run++)
+            runTank(run);
+        for(int run=0;run<2;run++)
+            runDiffy(run);
+
+        if(failures > 0)
+            throw new RuntimeException(failures + " runs ended farther than " + POSITION_TOLERANCE + " m or " + HEADING_TOLERANCE
+                    + " rad from the planned pose in SimulatedFollowBenchmark.main(...)!");
+    }
+
+    /**
+     * The paths followed by every drivetrain
+     * @return a fresh list of paths
+     */
+    private static ArrayList<Path> paths(){
+        ArrayList<Path> paths = new ArrayList<>();
+        paths.add(new Line(1.0, 0.6));
+        paths.add(new Turn(90, 0.6));
+        paths.add(new Line(0.5, 0.6));
+        paths.add(new Line(0.5, 0.6, true));
+        return paths;
+    }
+
+    /**
+     * A motor moving a quarter of the robot on a 48 mm wheel through a gear ratio, chosen so the
+     * wheel sees a goBILDA 312 rpm motor whatever the ratio: speed, torque and encoder ticks per
+     * wheel revolution stay the same
+     * @param gearRatio motor radians per wheel radian
+     * @return the motor
+     */
+    private static SimulatedMotor motor(double gearRatio){
+        double inertia = MASS/4*WHEEL_RADIUS*WHEEL_RADIUS/(gearRatio*gearRatio);
+        SimulatedMotor motor = new SimulatedMotor(32.67*gearRatio, 2.38/gearRatio, 12, inertia, 537.7/gearRatio, 0.003);
+        motor.setFriction(0.05/gearRatio);
+        return motor;
+    }
+
+    /**
+     * Follow the paths on a simulated four wheel drive
+     * @param run the index of the run
+     */
+    private static void runTank(int run){
+        SimulatedTankDrive drive = new SimulatedTankDrive(
+                new SimulatedMotor[]{motor(TANK_GEAR_RATIO), motor(TANK_GEAR_RATIO)},
+                new SimulatedMotor[]{motor(TANK_GEAR_RATIO), motor(TANK_GEAR_RATIO)},
+                WHEEL_RADIUS, TANK_GEAR_RATIO, TRACK_WIDTH);
+        SimulatedClock clock = new SimulatedClock(LOOP_PERIOD, STEP_PERIOD);
+        clock.addDevice(drive);
+
+        PathSequence sequence = new PathSequence(Drivetrain.FOURWD, paths(), drive.getMotors(), WHEEL_RADIUS, clock);
+        long start = System.nanoTime();
+        sequence.follow();
+        report("4wd", run, clock, System.nanoTime()-start, pose(drive));
+    }
+
+    /**
+     * Follow the paths on a simulated differential swerve
+     * @param run the index of the run
+     */
+    private static void runDiffy(int run){
+        // The pods are geared as Robot says, which DiffyPathSequence also uses
+        double ratio = Robot.diffyGearRatio;
+        SimulatedDiffyDrive drive = new SimulatedDiffyDrive(motor(ratio), motor(ratio), motor(ratio), motor(ratio),
+                WHEEL_RADIUS, ratio, TRACK_WIDTH);
+        SimulatedClock clock = new SimulatedClock(LOOP_PERIOD, STEP_PERIOD);
+        clock.addDevice(drive);
+
+        PathSequence sequence = new PathSequence(Drivetrain.DIFFY, paths(), drive.getMotors(), WHEEL_RADIUS, clock);
+        long start = System.nanoTime();
+        sequence.follow();
+        report("diffy", run, clock, System.nanoTime()-start, pose(drive));
+    }
+
+    /**
+     * Print the result of one run and count it as failed if it ended outside the tolerances
+     * @param name the name of the drivetrain
+     * @param run the index of the run
+     * @param clock the clock the run was followed against
+     * @param wallNanos the real time the run took (ns)
+     * @param pose the final pose
+     */
+    private static void report(String name, int run, SimulatedClock clock, long wallNanos, Pose pose){
+        double positionError = Math.hypot(pose.getX() - PLANNED_X, pose.getY() - PLANNED_Y);
+        double headingError = Math.abs(Math.IEEEremainder(pose.getHeading() - PLANNED_HEADING, 2*Math.PI));
+        boolean failed = positionError > POSITION_TOLERANCE || headingError > HEADING_TOLERANCE;
+        if(failed)
+            failures++;
+        System.out.printf("%s\t\t%d\t%.2f\t%.1f\t\t%.0fx\t%.4f\t%.4f\t%.4f\t\t%.4f\t\t%.4f%s%n", name, run, clock.getSeconds(),
+                wallNanos/1E6, clock.getSeconds()*1E9/wallNanos, pose.getX(), pose.getY(), pose.getHeading(),
+                positionError, headingError, failed ? "\tFAILED" : "");
+    }
+
+    /**
+     * Read the true pose of a simulated drivetrain
+     * @param localizer the drivetrain
+     * @return the pose
+     */
+    private static Pose pose(Localizer localizer){
+        Pose pose = new Pose();
+        localizer.getPose(pose);
+        return pose;
+    }
+}
@@ -0,0 +1,40 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks.jmh;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every control loop micro-benchmark in this package with the GC profiler, reporting the
+ * throughput of each hot path alongside its allocation rate (gc.alloc.rate.norm, bytes per call).
+ * A 500 Hz loop has 2000 us per cycle to share between everything it calls.
+ *
+ * Built by the desktop module in desktop/, which brings in jmh-core and the jmh-generator-annprocess
+ * annotation processor; run gradle jmh there. It is not part of the TeamCode build.
+ * Pass a regular expression as the first argument to run only the matching benchmarks.
+ */
+public class ControlLoopBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ControlLoopBenchmarks.class.getPackage().getName() + ".*")
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result("control-loop-benchmarks.csv")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks.jmh;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.KalmanBank;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.KalmanFilter;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.MatrixKalmanFilter;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDController;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDFController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one controller or filter update. The controllers are warmed with a number of samples
+ * first, so a cost that grows with the amount of samples seen shows up as a drop in throughput.
+ */
+@State(Scope.Thread)
+public class ControllerBenchmark {
+    /**
+     * Samples fed to each controller and filter before measuring
+     */
+    @Param({"0", "1000", "100000"})
+    public int samples;
+
+    /**
+     * Channels in the Kalman bank, one per drivetrain motor
+     */
+    private static final int CHANNELS = 4;
+
+    /**
+     * States of the matrix filter: x, y, heading and their velocities
+     */
+    private static final int STATES = 6;
+
+    /**
+     * Measurements fused per correction: x, y and heading
+     */
+    private static final int MEASUREMENTS = 3;
+
+    /**
+     * Time between two matrix filter predictions (s)
+     */
+    private static final double DT = 0.005;
+
+    private PIDController pid;
+    private PIDFController pidf;
+    private KalmanFilter kalman;
+    private KalmanFilter steadyStateKalman;
+    private KalmanBank bank;
+    private final double[] measurements = new double[CHANNELS];
+    private MatrixKalmanFilter matrixKalman;
+    private final double[] poseMeasurement = new double[MEASUREMENTS];
+    private final double[] poseMeasurementMatrix = new double[MEASUREMENTS*STATES];
+    private final double[] poseMeasurementNoise = new double[MEASUREMENTS*MEASUREMENTS];
+
+    /**
+     * Changes every update so no result can be folded into a constant
+     */
+    private long tick;
+
+    @Setup
+    public void setup(){
+        pid = new PIDController(0.5, 0.01, 0.1, 64);
+        pidf = new PIDFController();
+        kalman = new KalmanFilter();
+        steadyStateKalman = new KalmanFilter();
+        steadyStateKalman.enableSteadyState(true);
+        bank = new KalmanBank(CHANNELS);
+        bank.enableSteadyState(true);
+        matrixKalman = poseFilter();
+
+        for(int i=0;i<samples;i++){
+            tick++;
+            pid.update(1000, tick & 1023);
+            pidf.update(10, tick & 15);
+            kalman.filter(tick & 15);
+            steadyStateKalman.filter(tick & 15);
+            fill();
+            bank.filter(measurements, measurements);
+            matrixKalmanCycle();
+        }
+    }
+
+    /**
+     * A constant velocity pose filter measuring the pose, as odometry and the IMU would
+     * @return the filter
+     */
+    private MatrixKalmanFilter poseFilter(){
+        double[] transition = new double[STATES*STATES];
+        double[] processNoise = new double[STATES*STATES];
+        for(int i=0;i<STATES;i++){
+            transition[i*STATES + i] = 1;
+            processNoise[i*STATES + i] = i < MEASUREMENTS ? 1E-4 : 1E-2;
+        }
+        for(int i=0;i<MEASUREMENTS;i++){
+            transition[i*STATES + i + MEASUREMENTS] = DT;
+            poseMeasurementMatrix[i*STATES + i] = 1;
+            poseMeasurementNoise[i*MEASUREMENTS + i] = 1E-3;
+        }
+
+        MatrixKalmanFilter filter = new MatrixKalmanFilter(STATES, 0, MEASUREMENTS);
+        filter.setTransition(transition);
+        filter.setProcessNoise(processNoise);
+        return filter;
+    }
+
+    /**
+     * Fill the bank's measurements with values that change every update
+     */
+    private void fill(){
+        for(int i=0;i<CHANNELS;i++)
+            measurements[i] = (tick + i) & 15;
+    }
+
+    @Benchmark
+    public double pidUpdate(){
+        tick++;
+        return pid.update(1000, tick & 1023);
+    }
+
+    @Benchmark
+    public double pidfUpdate(){
+        tick++;
+        return pidf.update(10, tick & 15);
+    }
+
+    @Benchmark
+    public double kalmanFilter(){
+        tick++;
+        return kalman.filter(tick & 15);
+    }
+
+    @Benchmark
+    public double kalmanFilterSteadyState(){
+        tick++;
+        return steadyStateKalman.filter(tick & 15);
+    }
+
+    /**
+     * Predict the pose filter one step and correct it with a pose measurement
+     * @return the filtered x
+     */
+    @Benchmark
+    public double matrixKalmanCycle(){
+        tick++;
+        poseMeasurement[0] = (tick & 15)*0.01;
+        poseMeasurement[1] = (tick & 7)*0.01;
+        poseMeasurement[2] = (tick & 3)*0.01;
+        matrixKalman.predict();
+        matrixKalman.correct(poseMeasurement, poseMeasurementMatrix, poseMeasurementNoise, MEASUREMENTS);
+        return matrixKalman.getState(0);
+    }
+
+    @Benchmark
+    public double[] kalmanBankFilter(){
+        tick++;
+        fill();
+        bank.filter(measurements, measurements);
+        return measurements;
+    }
+}
@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks.jmh;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.InsertMarker;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.MarkerExecutor;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.MarkerList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of the two halves of RunnableCollective's dispatch: finding the next due marker with a
+ * MarkerList.Cursor, and handing a marker to the MarkerExecutor's workers.
+ */
+@State(Scope.Thread)
+public class MarkerDispatchBenchmark {
+    /**
+     * Amount of markers in the list
+     */
+    @Param({"4", "32", "256"})
+    public int markers;
+
+    private MarkerList markerList;
+    private MarkerList.Cursor cursor;
+    private MarkerExecutor executor;
+    private InsertMarker noOp;
+
+    /**
+     * Counts the markers the workers have run
+     */
+    private final AtomicLong ran = new AtomicLong();
+
+    /**
+     * Time since start of the next poll (s), advanced so every marker becomes due once per sweep
+     */
+    private double time;
+
+    @Setup
+    public void setup(){
+        noOp = new InsertMarker() {
+            @Override
+            public void execute() {
+                ran.incrementAndGet();
+            }
+        };
+        MarkerList.Builder builder = MarkerList.builder();
+        // Added in reverse so the builder has to sort them
+        for(int i=markers-1;i>=0;i--)
+            builder.add(i*0.01, noOp);
+        markerList = builder.build();
+        cursor = markerList.cursor();
+
+        executor = new MarkerExecutor(2, 1024, false);
+    }
+
+    @TearDown
+    public void tearDown(){
+        executor.shutdown();
+    }
+
+    /**
+     * One scheduler tick: poll the cursor for a due marker, starting over once every marker has been
+     * handed out
+     */
+    @Benchmark
+    public InsertMarker cursorPoll(){
+        if(!cursor.hasNext()){
+            cursor.reset();
+            time = 0;
+        }
+        time += 0.005;
+        return cursor.poll(time);
+    }
+
+    /**
+     * Hand a marker to a worker thread, includes waiting for room when the workers fall behind
+     */
+    @Benchmark
+    public boolean executorHandoff(){
+        return executor.execute(noOp);
+    }
+}
@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks.jmh;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.ConstantHeadingSpline;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Line;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Path;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.SplinePath;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.WheelCommand;
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.DrivetrainSymmetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Cost of asking a path for its velocities once per control cycle. Each call moves a little further
+ * along the path, wrapping at the end, the way the follower walks it.
+ */
+@State(Scope.Thread)
+public class PathSamplingBenchmark {
+    /**
+     * Amount of arcs in the splines
+     */
+    @Param({"3", "100"})
+    public int arcs;
+
+    /**
+     * Time between two samples, a 500 Hz loop (s)
+     */
+    private static final double STEP = 0.002;
+
+    private Line line;
+    private SplinePath spline;
+    private ConstantHeadingSpline constantHeadingSpline;
+    private final WheelCommand command = new WheelCommand();
+
+    /**
+     * Time into each path of the next sample (s)
+     */
+    private double lineTime, splineTime, constantHeadingTime;
+
+    @Setup
+    public void setup(){
+        Path.setSymmetryState(DrivetrainSymmetry.SYMMETRICAL);
+        Path.setTrackWidth(0.35);
+
+        line = new Line(2.0, 0.8);
+        line.build();
+
+        double[] radii = new double[arcs];
+        double[] arcLengths = new double[arcs];
+        for(int i=0;i<arcs;i++)
+            radii[i] = i % 2 == 0 ? 0.5 : -0.8;
+        Arrays.fill(arcLengths, 0.3);
+        spline = new SplinePath(0.8, 0.3, radii, arcLengths);
+        spline.build();
+        constantHeadingSpline = new ConstantHeadingSpline(0.8, 0.3, radii.clone(), arcLengths.clone());
+        constantHeadingSpline.build();
+    }
+
+    /**
+     * Advance a time by one step, wrapping before the end of a path
+     * @param time the current time (s)
+     * @param path the path being walked
+     * @return the next time (s)
+     */
+    private static double next(double time, Path path){
+        time += STEP;
+        return time < path.getExecuteTime() ? time : 0;
+    }
+
+    @Benchmark
+    public double lineLeftVelocity(){
+        lineTime = next(lineTime, line);
+        return line.getLeftVelocity(lineTime);
+    }
+
+    @Benchmark
+    public double splineLeftVelocity(){
+        splineTime = next(splineTime, spline);
+        return spline.getLeftVelocity(splineTime);
+    }
+
+    /**
+     * Sampling every velocity at once, as the follower does, which also covers the arc lookup
+     */
+    @Benchmark
+    public WheelCommand splineSample(){
+        splineTime = next(splineTime, spline);
+        spline.sample(splineTime, command);
+        return command;
+    }
+
+    @Benchmark
+    public WheelCommand constantHeadingSplineSample(){
+        constantHeadingTime = next(constantHeadingTime, constantHeadingSpline);
+        constantHeadingSpline.sample(constantHeadingTime, command);
+        return command;
+    }
+}
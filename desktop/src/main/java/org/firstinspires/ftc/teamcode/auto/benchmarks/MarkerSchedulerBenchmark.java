@@ -0,0 +1,159 @@
+package org.firstinspires.ftc.teamcode.auto.benchmarks;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.InsertMarker;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.MarkerList;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.RunnableCollective;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the CPU time the marker scheduling thread uses and how late each marker starts, for the
+ * old busy-spinning RunnableCollective loop and the current sleeping scheduler.
+ * Desktop only: the scheduling thread's CPU time is read through java.lang.management, which
+ * Android does not have, so it is built by the desktop module; run gradle markerScheduler there.
+ * The JVM must support thread CPU time.
+ */
+public class MarkerSchedulerBenchmark {
+    /**
+     * Amount of markers scheduled
+     */
+    private static final int MARKERS = 20;
+
+    /**
+     * Time between two markers (s)
+     */
+    private static final double SPACING = 0.1;
+
+    /**
+     * How long the scheduler runs before it is stopped (ms), past the last marker
+     */
+    private static final long RUN_MILLIS = (long)((MARKERS+2)*SPACING*1000);
+
+    public static void main(String[] args) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(!threads.isThreadCpuTimeSupported())
+            throw new RuntimeException("Thread CPU time is not supported on this JVM in MarkerSchedulerBenchmark.main(...)!");
+        threads.setThreadCpuTimeEnabled(true);
+
+        // Lateness is measured from activation, so it includes starting the scheduling thread;
+        // the spread between the earliest and latest marker shows the scheduling jitter alone
+        System.out.println("scheduler\tcpu(ms)\tcpu(%)\tmean late(us)\tmax late(us)\tspread(us)");
+        measure("spin loop", threads, false);
+        measure("sleeping", threads, true);
+    }
+
+    /**
+     * Run every marker once with one scheduler and print the results
+     * @param name the name of the scheduler
+     * @param threads used to read the scheduling thread's CPU time
+     * @param sleeping true for RunnableCollective, false for the old spin loop
+     */
+    private static void measure(String name, ThreadMXBean threads, boolean sleeping) throws InterruptedException {
+        final long[] started = new long[MARKERS];
+        InsertMarker[] markers = new InsertMarker[MARKERS];
+        double[] times = new double[MARKERS];
+        for(int i=0;i<MARKERS;i++){
+            final int index = i;
+            markers[i] = new InsertMarker() {
+                @Override
+                public void execute() {
+                    started[index] = System.nanoTime();
+                }
+            };
+            times[i] = (i+1)*SPACING;
+        }
+        MarkerList markerList = new MarkerList(markers, times);
+
+        // Created before the clock starts, as BotContainer could do during init
+        RunnableCollective collective = sleeping ? new RunnableCollective(markerList) : null;
+        SpinLoop spinLoop = sleeping ? null : new SpinLoop(markerList);
+
+        long start = System.nanoTime();
+        String threadName;
+        if(sleeping){
+            collective.activateMarkers();
+            threadName = "markers";
+        }
+        else{
+            spinLoop.start();
+            threadName = "spin-markers";
+        }
+
+        // The scheduling thread may finish after its last marker, so keep its last known CPU time
+        long id = threadId(threadName);
+        long cpu = 0;
+        long end = start + RUN_MILLIS*1000000;
+        while(System.nanoTime() < end){
+            cpu = Math.max(cpu, threads.getThreadCpuTime(id));
+            Thread.sleep(10);
+        }
+        long wall = System.nanoTime()-start;
+
+        if(sleeping)
+            collective.setStopMarkers();
+        else
+            spinLoop.stopMarkers();
+
+        double totalLate = 0;
+        double minLate = Double.MAX_VALUE;
+        double maxLate = 0;
+        for(int i=0;i<MARKERS;i++){
+            if(started[i] == 0)
+                throw new RuntimeException("Marker "+i+" never ran in MarkerSchedulerBenchmark.measure(...)!");
+            double late = (started[i] - start - times[i]*1E9)/1E3;
+            totalLate += late;
+            minLate = Math.min(minLate, late);
+            maxLate = Math.max(maxLate, late);
+        }
+        System.out.printf("%s\t%.1f\t%.1f\t%.1f\t\t%.1f\t\t%.1f%n", name, cpu/1E6, 100.0*cpu/wall, totalLate/MARKERS, maxLate, maxLate-minLate);
+    }
+
+    /**
+     * Find the id of a thread that has just been started
+     * @param name the name of the thread
+     * @return the id of the thread
+     */
+    private static long threadId(String name){
+        for(Thread thread : Thread.getAllStackTraces().keySet())
+            if(thread.getName().equals(name))
+                return thread.getId();
+        throw new RuntimeException("No thread named "+name+" in MarkerSchedulerBenchmark.threadId(...)!");
+    }
+
+    /**
+     * The scheduling loop RunnableCollective used before: polls every marker without sleeping.
+     */
+    private static final class SpinLoop extends Thread {
+        private final MarkerList markerList;
+        private final boolean[] threadStates;
+        private volatile boolean stop = false;
+
+        SpinLoop(MarkerList markerList){
+            super("spin-markers");
+            this.markerList = markerList;
+            this.threadStates = new boolean[markerList.getMarkers().length];
+        }
+
+        void stopMarkers(){
+            stop = true;
+        }
+
+        @Override
+        public void run(){
+            long start = System.nanoTime();
+            while(!stop)
+                for(int i=0;i<threadStates.length;i++)
+                    if(markerList.getTime(i) < (System.nanoTime()-start)/1E9 && !threadStates[i]){
+                        final int index = i;
+                        new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                markerList.getInsertMarker(index).execute();
+                            }
+                        }).start();
+                        threadStates[i] = true;
+                    }
+        }
+    }
+}
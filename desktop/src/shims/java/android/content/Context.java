@@ -0,0 +1,20 @@
+package android.content;
+
+/**
+ * Compile-only stand-in for the Android SDK, so the library builds on a desktop JVM. Never run.
+ */
+public class Context {
+    public static class Resources {
+        public int getIdentifier(String name, String type, String defPackage){
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public Resources getResources(){
+        throw new UnsupportedOperationException();
+    }
+
+    public String getPackageName(){
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,27 @@
+package com.qualcomm.robotcore.eventloop.opmode;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public abstract class LinearOpMode {
+    public Telemetry telemetry;
+    public HardwareMap hardwareMap;
+
+    public abstract void runOpMode() throws InterruptedException;
+
+    public void waitForStart(){
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean opModeIsActive(){
+        throw new UnsupportedOperationException();
+    }
+
+    public void idle(){
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,16 @@
+package com.qualcomm.robotcore.hardware;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public interface DcMotor {
+    enum RunMode { RUN_USING_ENCODER, RUN_WITHOUT_ENCODER, STOP_AND_RESET_ENCODER }
+    enum ZeroPowerBehavior { BRAKE, FLOAT }
+    enum Direction { FORWARD, REVERSE }
+
+    void setMode(RunMode mode);
+    void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior);
+    void setDirection(Direction direction);
+    void setPower(double power);
+    int getCurrentPosition();
+}
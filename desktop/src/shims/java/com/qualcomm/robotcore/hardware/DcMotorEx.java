@@ -0,0 +1,13 @@
+package com.qualcomm.robotcore.hardware;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public interface DcMotorEx extends DcMotor {
+    double getVelocity();
+    double getVelocity(AngleUnit unit);
+    void setVelocity(double angularRate);
+    void setVelocity(double angularRate, AngleUnit unit);
+}
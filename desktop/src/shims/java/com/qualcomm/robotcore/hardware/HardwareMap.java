@@ -0,0 +1,21 @@
+package com.qualcomm.robotcore.hardware;
+
+import android.content.Context;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public class HardwareMap {
+    public static class DeviceMapping<T> {
+        public T get(String deviceName){
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public DeviceMapping<DcMotor> dcMotor;
+    public Context appContext;
+
+    public <T> T get(Class<? extends T> classOrInterface, String deviceName){
+        throw new UnsupportedOperationException();
+    }
+}
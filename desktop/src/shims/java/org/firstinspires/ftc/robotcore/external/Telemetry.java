@@ -0,0 +1,10 @@
+package org.firstinspires.ftc.robotcore.external;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public interface Telemetry {
+    Object addData(String caption, Object value);
+    Object addData(String caption, String format, Object... args);
+    boolean update();
+}
@@ -0,0 +1,7 @@
+package org.firstinspires.ftc.robotcore.external.hardware.camera;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public interface WebcamName {
+}
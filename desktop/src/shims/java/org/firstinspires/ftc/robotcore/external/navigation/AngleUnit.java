@@ -0,0 +1,8 @@
+package org.firstinspires.ftc.robotcore.external.navigation;
+
+/**
+ * Compile-only stand-in for the FTC SDK, so the library builds on a desktop JVM. Never run.
+ */
+public enum AngleUnit {
+    RADIANS, DEGREES
+}
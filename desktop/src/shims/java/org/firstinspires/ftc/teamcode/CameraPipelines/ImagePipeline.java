@@ -0,0 +1,7 @@
+package org.firstinspires.ftc.teamcode.CameraPipelines;
+
+/**
+ * Compile-only stand-in for the TeamCode class, so the library builds on a desktop JVM. Never run.
+ */
+public class ImagePipeline {
+}
@@ -0,0 +1,15 @@
+package org.openftc.easyopencv;
+
+/**
+ * Compile-only stand-in for EasyOpenCV, so the library builds on a desktop JVM. Never run.
+ */
+public interface OpenCvCamera {
+    interface AsyncCameraOpenListener {
+        void onOpened();
+        void onError(int errorCode);
+    }
+
+    void setPipeline(Object pipeline);
+    void openCameraDeviceAsync(AsyncCameraOpenListener listener);
+    void startStreaming(int width, int height, OpenCvCameraRotation rotation);
+}
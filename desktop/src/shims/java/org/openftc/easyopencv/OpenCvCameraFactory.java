@@ -0,0 +1,16 @@
+package org.openftc.easyopencv;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+
+/**
+ * Compile-only stand-in for EasyOpenCV, so the library builds on a desktop JVM. Never run.
+ */
+public class OpenCvCameraFactory {
+    public static OpenCvCameraFactory getInstance(){
+        throw new UnsupportedOperationException();
+    }
+
+    public OpenCvCamera createWebcam(WebcamName name, int viewId){
+        throw new UnsupportedOperationException();
+    }
+}
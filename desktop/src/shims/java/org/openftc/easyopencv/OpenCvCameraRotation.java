@@ -0,0 +1,8 @@
+package org.openftc.easyopencv;
+
+/**
+ * Compile-only stand-in for EasyOpenCV, so the library builds on a desktop JVM. Never run.
+ */
+public enum OpenCvCameraRotation {
+    UPRIGHT
+}
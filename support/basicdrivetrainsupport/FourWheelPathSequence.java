@@ -1,14 +1,13 @@
 package org.firstinspires.ftc.teamcode.auto.support.basicdrivetrainsupport;
 
-import static org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS;
-
 import com.qualcomm.robotcore.hardware.DcMotorEx;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.KalmanFilter;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Clock;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.FollowerEngine;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.HardwareMotor;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Path;
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDController;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PathSequenceFather;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.VelocityMotor;
 
 import java.util.ArrayList;
 
@@ -23,22 +22,27 @@ public class FourWheelPathSequence extends PathSequenceFather {
     /**
      * Motor object - first left motor
      */
-    private DcMotorEx left1;
+    private VelocityMotor left1;
 
     /**
      * Motor object - second left motor
      */
-    private DcMotorEx left2;
+    private VelocityMotor left2;
 
     /**
      * Motor object - first right motor
      */
-    private DcMotorEx right1;
+    private VelocityMotor right1;
 
     /**
      * Motor object - second right motor
      */
-    private DcMotorEx right2;
+    private VelocityMotor right2;
+
+    /**
+     * Follows the paths on this drivetrain's motors
+     */
+    private final FollowerEngine engine;
 
     /**
      * Constructor for FourWheelPathSequence, assigns used objects
@@ -50,13 +54,29 @@ public class FourWheelPathSequence extends PathSequenceFather {
      * @param wheelR is the wheel's radius
      */
     public FourWheelPathSequence(ArrayList<Path> paths, DcMotorEx left1, DcMotorEx left2, DcMotorEx right1, DcMotorEx right2, double wheelR){
+        this(paths, HardwareMotor.wrap(left1), HardwareMotor.wrap(left2), HardwareMotor.wrap(right1), HardwareMotor.wrap(right2), wheelR, Clock.SYSTEM);
+    }
+
+    /**
+     * Constructor for FourWheelPathSequence, assigns used objects
+     * @param paths is the ArrayList of paths
+     * @param left1 and is a left motor (presumed to be negative to go forward) does not matter which
+     * @param left2 and is a left motor (presumed to be negative to go forward) does not matter which
+     * @param right1 is the right motor (presumed to be positive to go forward) does not matter which
+     * @param right2 is the right motor (presumed to be positive to go forward) does not matter which
+     * @param wheelR is the wheel's radius
+     * @param clock the time to follow the paths against, such as a simulated clock
+     */
+    public FourWheelPathSequence(ArrayList<Path> paths, VelocityMotor left1, VelocityMotor left2, VelocityMotor right1, VelocityMotor right2, double wheelR, Clock clock){
         trajectory = paths;
         wheelRadius = wheelR;
 
         this.left1 = left1;
         this.left2 = left2;
         this.right1 = right1;
-        this.right2= right2;
+        this.right2 = right2;
+
+        engine = new FollowerEngine(new VelocityMotor[]{left1, left2, right1, right2}, new TankKinematics(2, 2, wheelR), clock);
     }
 
     /**
@@ -68,47 +88,6 @@ public class FourWheelPathSequence extends PathSequenceFather {
         if(left1 == null || left2 == null || right1 == null || right2 == null || trajectory == null)
             throw new RuntimeException("Null object parameter pssed to FourWheelPathSequence (in FourWheelPathSequence.follow())");
 
-        ElapsedTime t = new ElapsedTime();
-        t.reset();
-        for(Path p : trajectory){
-            if(!p.getBuilt())
-                p.build();
-
-            // Create kalman filter and PID objects
-            KalmanFilter kLeft1 = new KalmanFilter();
-            PIDController pidLeft1 = new PIDController();
-
-            KalmanFilter kLeft2 = new KalmanFilter();
-            PIDController pidLeft2 = new PIDController();
-
-            KalmanFilter kRight1 = new KalmanFilter();
-            PIDController pidRight1 = new PIDController();
-
-            KalmanFilter kRight2 = new KalmanFilter();
-            PIDController pidRight2 = new PIDController();
-
-            double offset = t.milliseconds();
-
-            // Execute the path
-            while(!p.getCompleted()){
-                // Get the velocities from what the path says the end result velocities should be
-                double leftV = Path.convertForStandardDrivetrain(wheelRadius, p.getLeftVelocity((t.milliseconds()-offset)/1000));
-                double rightV = Path.convertForStandardDrivetrain(wheelRadius, p.getRightVelocity((t.milliseconds()-offset)/1000));
-
-                // Correct based on PID and kalman filter
-                double corL1 = pidLeft1.update((long)leftV, (long)kLeft1.filter(left1.getVelocity(RADIANS)));
-                double corL2 = pidLeft2.update((long)leftV, (long)kLeft2.filter(left2.getVelocity(RADIANS)));
-                double corR1 = pidRight1.update((long)rightV, (long)kRight1.filter(right1.getVelocity(RADIANS)));
-                double corR2 = pidRight2.update((long)rightV, (long)kRight2.filter(right2.getVelocity(RADIANS)));
-
-                // Write the corrected values
-                left1.setVelocity(corL1+leftV, RADIANS);
-                left2.setVelocity(corL2+leftV, RADIANS);
-
-                right1.setVelocity(corR1+rightV, RADIANS);
-                right2.setVelocity(corR2+rightV, RADIANS);
-            }
-            resetPaths();
-        }
+        engine.follow(this);
     }
 }
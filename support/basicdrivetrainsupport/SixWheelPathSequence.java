@@ -1,14 +1,13 @@
 package org.firstinspires.ftc.teamcode.auto.support.basicdrivetrainsupport;
 
-import static org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS;
-
 import com.qualcomm.robotcore.hardware.DcMotorEx;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.KalmanFilter;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Clock;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.FollowerEngine;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.HardwareMotor;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Path;
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDController;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PathSequenceFather;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.VelocityMotor;
 
 import java.util.ArrayList;
 
@@ -23,27 +22,32 @@ public class SixWheelPathSequence extends PathSequenceFather {
     /**
      * First left motor object (order doesn't matter but for the sake of argument let's start with the rearmost motors on the robot)
      */
-    private DcMotorEx left1;
+    private VelocityMotor left1;
     /**
      * Second left motor object
      */
-    private DcMotorEx left2;
+    private VelocityMotor left2;
     /**
      * Third left motor object
      */
-    private DcMotorEx left3;
+    private VelocityMotor left3;
     /**
      * First right motor object (rearmost right motor)
      */
-    private DcMotorEx right1;
+    private VelocityMotor right1;
     /**
      * Second right motor object
      */
-    private DcMotorEx right2;
+    private VelocityMotor right2;
     /**
      * Third right motor object
      */
-    private DcMotorEx right3;
+    private VelocityMotor right3;
+
+    /**
+     * Follows the paths on this drivetrain's motors
+     */
+    private final FollowerEngine engine;
 
     /**
      * Constructor that assigns the objects used in SixWheelPathSequence
@@ -57,6 +61,22 @@ public class SixWheelPathSequence extends PathSequenceFather {
      * @param wheelR is the wheel's radius
      */
     public SixWheelPathSequence(ArrayList<Path> paths, DcMotorEx left1, DcMotorEx left2, DcMotorEx left3, DcMotorEx right1, DcMotorEx right2, DcMotorEx right3, double wheelR){
+        this(paths, HardwareMotor.wrap(left1), HardwareMotor.wrap(left2), HardwareMotor.wrap(left3), HardwareMotor.wrap(right1), HardwareMotor.wrap(right2), HardwareMotor.wrap(right3), wheelR, Clock.SYSTEM);
+    }
+
+    /**
+     * Constructor that assigns the objects used in SixWheelPathSequence
+     * @param paths is the ArrayList of paths
+     * @param left1 and is a left motor (presumed to be negative to go forward) does not matter which
+     * @param left2 and is a left motor (presumed to be negative to go forward) does not matter which
+     * @param left3 and is a left motor (presumed to be negative to go forward) does not matter which
+     * @param right1 is the right motor (presumed to be positive to go forward) does not matter which
+     * @param right2 is the right motor (presumed to be positive to go forward) does not matter which
+     * @param right3 is the right motor (presumed to be positive to go forward) does not matter which
+     * @param wheelR is the wheel's radius
+     * @param clock the time to follow the paths against, such as a simulated clock
+     */
+    public SixWheelPathSequence(ArrayList<Path> paths, VelocityMotor left1, VelocityMotor left2, VelocityMotor left3, VelocityMotor right1, VelocityMotor right2, VelocityMotor right3, double wheelR, Clock clock){
         trajectory = paths;
         wheelRadius = wheelR;
 
@@ -64,9 +84,10 @@ public class SixWheelPathSequence extends PathSequenceFather {
         this.left2 = left2;
         this.left3 = left3;
         this.right1 = right1;
-        this.right2= right2;
-        this.right3= right3;
+        this.right2 = right2;
+        this.right3 = right3;
 
+        engine = new FollowerEngine(new VelocityMotor[]{left1, left2, left3, right1, right2, right3}, new TankKinematics(3, 3, wheelR), clock);
     }
 
     /**
@@ -79,57 +100,6 @@ public class SixWheelPathSequence extends PathSequenceFather {
         if(left1 == null || left2 == null || left3 == null || right1 == null || right2 == null || right3 == null || trajectory == null)
             throw new RuntimeException("Null object parameter passed to SixWheelPathSequence (in SixWheelPathSequence.follow())");
 
-        ElapsedTime t = new ElapsedTime();
-        t.reset();
-
-        for(Path p : trajectory){
-            if(!p.getBuilt())
-                p.build();
-
-            KalmanFilter kLeft1 = new KalmanFilter();
-            PIDController pidLeft1 = new PIDController();
-
-            KalmanFilter kLeft2 = new KalmanFilter();
-            PIDController pidLeft2 = new PIDController();
-
-            KalmanFilter kLeft3 = new KalmanFilter();
-            PIDController pidLeft3 = new PIDController();
-
-            KalmanFilter kRight1 = new KalmanFilter();
-            PIDController pidRight1 = new PIDController();
-
-            KalmanFilter kRight2 = new KalmanFilter();
-            PIDController pidRight2 = new PIDController();
-
-            KalmanFilter kRight3 = new KalmanFilter();
-            PIDController pidRight3 = new PIDController();
-
-            double offset = t.milliseconds();
-
-            // Execute the path
-            while(!p.getCompleted()){
-                // Get the velocities from what the path says the end result velocities should be
-                double leftV = Path.convertForStandardDrivetrain(wheelRadius, p.getLeftVelocity((t.milliseconds()-offset)/1000));
-                double rightV = Path.convertForStandardDrivetrain(wheelRadius, p.getRightVelocity((t.milliseconds()-offset)/1000));
-
-                // Correct based on PID and kalman filter
-                double corL1 = pidLeft1.update((long)leftV, (long)kLeft1.filter(left1.getVelocity(RADIANS)));
-                double corL2 = pidLeft2.update((long)leftV, (long)kLeft2.filter(left2.getVelocity(RADIANS)));
-                double corL3 = pidLeft3.update((long)leftV, (long)kLeft3.filter(left3.getVelocity(RADIANS)));
-                double corR1 = pidRight1.update((long)rightV, (long)kRight1.filter(right1.getVelocity(RADIANS)));
-                double corR2 = pidRight2.update((long)rightV, (long)kRight2.filter(right2.getVelocity(RADIANS)));
-                double corR3 = pidRight3.update((long)rightV, (long)kRight3.filter(right3.getVelocity(RADIANS)));
-
-                // Write the corrected values
-                left1.setVelocity(corL1+leftV, RADIANS);
-                left2.setVelocity(corL2+leftV, RADIANS);
-                left3.setVelocity(corL3+leftV, RADIANS);
-
-                right1.setVelocity(corR1+rightV, RADIANS);
-                right2.setVelocity(corR2+rightV, RADIANS);
-                right3.setVelocity(corR3+rightV, RADIANS);
-            }
-            resetPaths();
-        }
+        engine.follow(this);
     }
 }
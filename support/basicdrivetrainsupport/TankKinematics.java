@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode.auto.support.basicdrivetrainsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Kinematics;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.WheelCommand;
+
+/**
+ * Kinematics for 2/4/6 wheel drivetrains where every motor on a side drives at that side's velocity.
+ * Motors are ordered with the left motors first, then the right motors.
+ */
+public class TankKinematics implements Kinematics {
+    /**
+     * Amount of motors on the left side
+     */
+    private final int leftMotors;
+    /**
+     * Amount of motors on the right side
+     */
+    private final int rightMotors;
+    /**
+     * Radius of the wheel
+     */
+    private final double wheelRadius;
+
+    /**
+     * Create kinematics for a drivetrain with motors split between its two sides
+     * @param leftMotors the amount of left motors
+     * @param rightMotors the amount of right motors
+     * @param wheelRadius the radius, NOT DIAMETER, of the wheel
+     */
+    public TankKinematics(int leftMotors, int rightMotors, double wheelRadius){
+        if(leftMotors < 1 || rightMotors < 1)
+            throw new RuntimeException("Each side must have at least one motor in TankKinematics.TankKinematics(...)!");
+        if(wheelRadius <= 0)
+            throw new RuntimeException("wheelRadius in TankKinematics.TankKinematics(...) must be greater than zero!");
+        this.leftMotors = leftMotors;
+        this.rightMotors = rightMotors;
+        this.wheelRadius = wheelRadius;
+    }
+
+    @Override
+    public final int getMotorCount(){
+        return leftMotors + rightMotors;
+    }
+
+    /**
+     * Convert a linear velocity to the motor velocity, like Path.convertForStandardDrivetrain(...) but
+     * keeping the sign so reversing sides and pose corrections can be commanded
+     * @param velocity the linear velocity
+     * @return the motor velocity
+     */
+    private double convert(double velocity){
+        return velocity / wheelRadius / (2 * 3.14159);
+    }
+
+    /**
+     * Convert the side velocities and write them to each motor on that side
+     * @param command what the path commands at this time
+     * @param targets is filled with the left velocity, then the right velocity
+     */
+    @Override
+    public final void toMotorVelocities(WheelCommand command, double[] targets){
+        double leftV = convert(command.getLeftVelocity());
+        double rightV = convert(command.getRightVelocity());
+
+        for(int i=0;i<leftMotors;i++)
+            targets[i] = leftV;
+        for(int i=leftMotors;i<leftMotors+rightMotors;i++)
+            targets[i] = rightV;
+    }
+}
@@ -18,6 +18,16 @@ import java.util.ArrayList;
  * Class to slim down autonomous programs for four motor drivetrains and execute markers.
  */
 abstract public class BotContainer extends LinearOpMode{
+   /**
+    * Longest time to wait for the flight recording to be written after following (ms)
+    */
+   private static final long FLIGHT_RECORDER_TIMEOUT = 500;
+
+   /**
+    * Longest time to wait for progress markers still waiting for a worker to start after following (ms)
+    */
+   private static final long PROGRESS_MARKER_TIMEOUT = 500;
+
    // Pathing and marker list objects
    /**
     * The sequence of paths to follow
@@ -27,6 +37,10 @@ abstract public class BotContainer extends LinearOpMode{
     * The markers to follow
     */
    protected MarkerList markerList;
+   /**
+    * Mechanism actions that run once the actions they depend on finish
+    */
+   protected MarkerGraph markerGraph;
    /**
     * Object to create many threads to run mechanism loops
     */
@@ -87,7 +101,7 @@ abstract public class BotContainer extends LinearOpMode{
     * Postcondition: the path has been followed and the markers have stopped
     */
    protected final void executeAuto() {
-      if(markerList == null && pathSequence == null)
+      if(markerList == null && markerGraph == null && pathSequence == null)
          throw new RuntimeException("Tried to run an empty path and set of markers in BotContainer.executeAuto(). You must assign at least one!");
 
       // Only execute the auto when the button is pressed
@@ -96,14 +110,50 @@ abstract public class BotContainer extends LinearOpMode{
       // Start markers
       if (markerList != null)
          activateMarkers();
-
-      // Follow the path
-      if (pathSequence != null)
-         pathSequence.follow();
+      if (markerGraph != null)
+         markerGraph.start();
+
+      // Follow the path, then stop the markers placed along it and write out the flight recording,
+      // which matters most when following failed
+      int dropped = 0, saturated = 0;
+      if (pathSequence != null) {
+         ProgressMarkerList progressMarkers = pathSequence.getPathSequence().getProgressMarkers();
+         try {
+            pathSequence.follow();
+            // Markers due at the end of the path that found every worker busy are started now
+            if (progressMarkers != null)
+               progressMarkers.finish(PROGRESS_MARKER_TIMEOUT);
+         }
+         finally {
+            if (progressMarkers != null) {
+               dropped = progressMarkers.stop();
+               saturated = progressMarkers.getSaturatedCount();
+            }
+            FlightRecorder flightRecorder = pathSequence.getPathSequence().getFlightRecorder();
+            if (flightRecorder != null)
+               flightRecorder.stop(FLIGHT_RECORDER_TIMEOUT);
+         }
+      }
+
+      // With no path to follow, give the graph until it completes or the OpMode stops
+      if (markerGraph != null && pathSequence == null)
+         while (opModeIsActive() && !markerGraph.isComplete())
+            idle();
 
       // Stop the insertMarkers
-      if (markerList != null)
+      if (markerList != null) {
          stopMarkers();
+         saturated += runMarkerObject.getSaturatedCount();
+      }
+      if (markerGraph != null)
+         markerGraph.stop();
+
+      // Markers that hold a worker for a long time make later ones wait, report it if they did
+      if (dropped > 0 || saturated > 0) {
+         telemetry.addData("Markers dropped without running", dropped);
+         telemetry.addData("Markers that waited for a worker", saturated);
+         telemetry.update();
+      }
    }
 
    /**
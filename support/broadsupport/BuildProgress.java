@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * An interface to report how far along building a path sequence is.
+ * Useful for showing build progress on the telemetry during initialization.
+ */
+public interface BuildProgress {
+    /**
+     * report the build progress, always called from the thread that started the build
+     * @param built the amount of paths that have finished building
+     * @param total the amount of paths to build
+     */
+    void update(int built, int total);
+}
@@ -0,0 +1,23 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Source of time for the follower, so paths can be followed against simulated time as well as
+ * the real time of the robot.
+ */
+public interface Clock {
+    /**
+     * The real time, read through System.nanoTime()
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * the current time, only meaningful relative to other readings of the same clock
+     * @return the time (ns)
+     */
+    long nanoTime();
+}
@@ -64,6 +64,22 @@ public class ConstantHeadingSpline extends SplinePath{
         return getLeftAngularVelocity(currentTime);
     }
 
+    /**
+     * Method to sample the linear and angular velocities for a constant heading spline at once.
+     * @param currentTime is the current time into the spline.
+     * @param command is the holder to write the velocities to
+     */
+    @Override
+    protected final void sampleAnalytic(double currentTime, WheelCommand command){
+        super.sampleAnalytic(currentTime, command);
+        if(command.getCompleted())
+            return;
+
+        double sideV = command.getLeftVelocity();
+        double angularV = 2*(getVelocity(currentTime)-sideV);
+        command.set(sideV, sideV, angularV, angularV, false);
+    }
+
     /**
      * Method returning the type of path this specific path is
      * @return the correct type of path.
@@ -0,0 +1,462 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records what the follower commanded and measured every cycle, so a run that went wrong can be
+ * looked at afterwards. Cheap enough to leave on in matches: the control loop only copies a few
+ * numbers into a preallocated ring buffer and publishes them with an ordered store, without locks
+ * or allocation. A background thread drains the ring into a binary file. If the ring is full,
+ * because the file cannot keep up, the record is dropped instead of blocking the loop.
+ * Each run is written to a new file in a directory, named "flight-" and the time of creation, and
+ * only the newest few are kept so the recordings cannot fill up the storage over a season.
+ * The recorder is sized by the follower when it starts, so it always records every motor driven.
+ *
+ * The file is big-endian. It starts with a header: magic "COYF", version, motor count and fields
+ * per motor, each an int. Then each record holds the clock time (long, ns), the cycle sequence
+ * number (int), the index of the path (int), and a float per motor for each of the target
+ * velocity, filtered measured velocity, PID correction and final command. Dropped records leave
+ * gaps in the sequence numbers.
+ */
+public class FlightRecorder {
+    /**
+     * Marks a file as a flight recording ("COYF")
+     */
+    private static final int MAGIC = 0x434F5946;
+
+    /**
+     * Version of the file layout, bump whenever the layout changes
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Values recorded per motor: target, measurement, correction and command
+     */
+    private static final int FIELDS = 4;
+
+    /**
+     * Default amount of records the ring holds, about five seconds of cycles at 200 Hz
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Start and end of the name of every recording
+     */
+    private static final String PREFIX = "flight-", SUFFIX = ".bin";
+
+    /**
+     * Time the drain thread sleeps when the ring is empty (ns)
+     */
+    private static final long DRAIN_PERIOD = 20000000;
+
+    /**
+     * Size of the drain thread's write buffer (bytes)
+     */
+    private static final int WRITE_BUFFER_BYTES = 64*1024;
+
+    /**
+     * File the records are written to
+     */
+    private final File file;
+
+    /**
+     * Amount of recordings kept in the directory, counting this one
+     */
+    private final int maxFiles;
+
+    /**
+     * Amount of motors recorded per cycle, 0 until started
+     */
+    private int motorCount = 0;
+
+    /**
+     * Size of one record in the file (bytes), set when started
+     */
+    private int recordBytes;
+
+    // Ring buffer, record n is held in slot n & mask
+    /**
+     * Amount of records the ring holds minus one, the capacity is a power of two
+     */
+    private final int mask;
+    /**
+     * Clock time of each record (ns)
+     */
+    private final long[] times;
+    /**
+     * Sequence number of each record
+     */
+    private final int[] sequences;
+    /**
+     * Path index of each record
+     */
+    private final int[] paths;
+    /**
+     * Values of each record, FIELDS blocks of motorCount values per slot, allocated when started
+     */
+    private float[] values;
+
+    /**
+     * Amount of records published by the control loop, written only by it
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Amount of records taken by the drain thread, written only by it
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Last value of tail seen by the control loop, so it only reads tail when the ring looks full
+     */
+    private long cachedTail = 0;
+    /**
+     * Cycles offered to record(...), kept or dropped, used as the sequence number
+     */
+    private int sequence = 0;
+    /**
+     * Amount of records dropped because the ring was full
+     */
+    private volatile long dropped = 0;
+
+    /**
+     * Whether start() has been called
+     */
+    private boolean started = false;
+    /**
+     * Thread opening the file and draining the ring to it, null until started
+     */
+    private Thread drainer;
+    /**
+     * Signals that no more records should be kept and the drain thread should finish
+     */
+    private volatile boolean stopped = false;
+    /**
+     * Exception that stopped the file from being written, null if none has
+     */
+    private volatile Exception failure = null;
+
+    /**
+     * Create a recorder holding a default amount of records before it drops
+     * @param directory the directory to write the recording to
+     * @param maxFiles the amount of recordings to keep in the directory, counting this one
+     */
+    public FlightRecorder(File directory, int maxFiles){
+        this(directory, maxFiles, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a recorder writing to a new file in a directory
+     * @param directory the directory to write the recording to
+     * @param maxFiles the amount of recordings to keep in the directory, counting this one
+     * @param capacity the amount of records the ring holds, rounded up to a power of two
+     * Precondition:  directory is not null, maxFiles and capacity are greater than zero and capacity
+     *                is at most 2^24
+     */
+    public FlightRecorder(File directory, int maxFiles, int capacity){
+        if(directory == null)
+            throw new RuntimeException("directory in FlightRecorder.FlightRecorder(...) must not be null!");
+        if(maxFiles <= 0 || capacity <= 0 || capacity > 1 << 24)
+            throw new RuntimeException("maxFiles and capacity in FlightRecorder.FlightRecorder(...) must be greater than zero, with at most 2^24 records!");
+
+        this.file = new File(directory, PREFIX + System.currentTimeMillis() + SUFFIX);
+        this.maxFiles = maxFiles;
+
+        int slots = Integer.highestOneBit(capacity);
+        if(slots < capacity)
+            slots <<= 1;
+        mask = slots - 1;
+        times = new long[slots];
+        sequences = new int[slots];
+        paths = new int[slots];
+    }
+
+    /**
+     * Size the ring for the motors driven and start draining records to the file, which is opened
+     * by the drain thread so following does not wait for storage. Called by the follower when it
+     * starts, from the thread that records.
+     * @param motorCount the amount of motors recorded per cycle
+     * @return false if recording is off because the file could not be written or the recorder was
+     *         already started for a different amount of motors, which getFailure() reports
+     * Precondition:  motorCount is greater than zero
+     * Postcondition: records are written to the file until stop() is called
+     */
+    public final synchronized boolean start(int motorCount){
+        if(motorCount <= 0)
+            throw new RuntimeException("motorCount in FlightRecorder.start(...) must be greater than zero!");
+        if(started){
+            // Recording is only a diagnostic, following goes on without it
+            if(motorCount != this.motorCount && failure == null){
+                failure = new IllegalStateException("Flight recorder started for " + this.motorCount
+                        + " motors was started again for " + motorCount);
+                stopped = true;
+            }
+            return !stopped;
+        }
+        started = true;
+        if(stopped)
+            return false;
+
+        this.motorCount = motorCount;
+        recordBytes = 8 + 4 + 4 + 4*FIELDS*motorCount;
+        values = new float[(mask + 1)*FIELDS*motorCount];
+
+        drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                FileChannel channel = open();
+                if(channel != null)
+                    drain(channel);
+            }
+        }, "flight-recorder");
+        drainer.setDaemon(true);
+        drainer.start();
+        return true;
+    }
+
+    /**
+     * Make room for the recording by deleting the oldest ones, then create its file
+     * @return the open file, or null if it could not be opened, which stops recording
+     */
+    private FileChannel open(){
+        try{
+            File directory = file.getAbsoluteFile().getParentFile();
+            if(!directory.isDirectory() && !directory.mkdirs())
+                throw new IOException("Could not create " + directory);
+            prune(directory);
+            FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+            channel.truncate(0);
+            return channel;
+        }
+        catch(IOException e){
+            failure = e;
+            stopped = true;
+            return null;
+        }
+    }
+
+    /**
+     * Delete the oldest recordings so at most maxFiles remain once this one is created
+     * @param directory the directory holding the recordings
+     */
+    private void prune(File directory){
+        File[] recordings = directory.listFiles();
+        if(recordings == null)
+            return;
+        int n = 0;
+        for(File recording : recordings)
+            if(timestamp(recording) >= 0 && !recording.equals(file))
+                recordings[n++] = recording;
+        if(n < maxFiles)
+            return;
+
+        recordings = Arrays.copyOf(recordings, n);
+        Arrays.sort(recordings, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(timestamp(a), timestamp(b));
+            }
+        });
+        // A recording that cannot be deleted is left, it only takes up space
+        for(int i=0;i<=n-maxFiles;i++)
+            recordings[i].delete();
+    }
+
+    /**
+     * Get the time a recording was created from its name
+     * @param recording the file
+     * @return the time (ms), or -1 if the file is not a recording
+     */
+    private static long timestamp(File recording){
+        String name = recording.getName();
+        if(!recording.isFile() || !name.startsWith(PREFIX) || !name.endsWith(SUFFIX))
+            return -1;
+        try{
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        }
+        catch(NumberFormatException e){
+            return -1;
+        }
+    }
+
+    /**
+     * Get the file the records are written to
+     * @return the file
+     */
+    public final File getFile(){
+        return file;
+    }
+
+    /**
+     * Get the amount of motors recorded per cycle
+     * @return the amount of motors, 0 until started
+     */
+    public final int getMotorCount(){
+        return motorCount;
+    }
+
+    /**
+     * Record one cycle of the follower, called only from the control loop. Returns right away,
+     * dropping the record if the ring is full or the recorder has stopped.
+     * @param nanoTime the clock time of the cycle (ns)
+     * @param path the index of the Path being followed
+     * @param targets the target velocity of each motor
+     * @param measurements the filtered measured velocity of each motor
+     * @param corrections the PID correction of each motor
+     * @param commands the velocity commanded to each motor
+     * @return true if the record was kept
+     * Precondition:  every array holds at least one value per motor
+     */
+    public final boolean record(long nanoTime, int path, double[] targets, double[] measurements,
+                                double[] corrections, double[] commands){
+        int cycle = sequence++;
+        if(stopped || values == null)
+            return false;
+
+        long next = head.get();
+        if(next - cachedTail > mask){
+            cachedTail = tail.get();
+            if(next - cachedTail > mask){
+                dropped++;
+                return false;
+            }
+        }
+
+        int slot = (int)next & mask;
+        times[slot] = nanoTime;
+        sequences[slot] = cycle;
+        paths[slot] = path;
+        int base = slot*FIELDS*motorCount;
+        for(int m=0;m<motorCount;m++){
+            values[base + m] = (float)targets[m];
+            values[base + motorCount + m] = (float)measurements[m];
+            values[base + 2*motorCount + m] = (float)corrections[m];
+            values[base + 3*motorCount + m] = (float)commands[m];
+        }
+
+        // The ordered store makes the slot visible to the drain thread before the new head
+        head.lazySet(next + 1);
+        return true;
+    }
+
+    /**
+     * Body of the drain thread: write the header, then every published record until stopped
+     * @param channel the open file
+     */
+    private void drain(FileChannel channel){
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(WRITE_BUFFER_BYTES, 16 + recordBytes));
+        try{
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(motorCount);
+            buffer.putInt(FIELDS);
+
+            boolean finishing = false;
+            while(true){
+                // Read stopped before draining, so records published before stop() are never lost
+                if(stopped)
+                    finishing = true;
+
+                long taken = tail.get();
+                long published = head.get();
+                for(;taken < published;taken++){
+                    if(buffer.remaining() < recordBytes)
+                        write(channel, buffer);
+                    put(buffer, (int)taken & mask);
+                    // Free the slot as soon as it has been copied
+                    tail.lazySet(taken + 1);
+                }
+
+                if(finishing)
+                    break;
+                if(buffer.position() > 0)
+                    write(channel, buffer);
+                LockSupport.parkNanos(this, DRAIN_PERIOD);
+            }
+            write(channel, buffer);
+        }
+        catch(IOException e){
+            failure = e;
+            stopped = true;
+        }
+        finally{
+            try{
+                channel.close();
+            }
+            catch(IOException e){
+                if(failure == null)
+                    failure = e;
+            }
+        }
+    }
+
+    /**
+     * Copy one record from the ring into the write buffer
+     * @param buffer the write buffer, with room for the record
+     * @param slot the slot of the record
+     */
+    private void put(ByteBuffer buffer, int slot){
+        buffer.putLong(times[slot]);
+        buffer.putInt(sequences[slot]);
+        buffer.putInt(paths[slot]);
+        int base = slot*FIELDS*motorCount;
+        for(int i=0;i<FIELDS*motorCount;i++)
+            buffer.putFloat(values[base + i]);
+    }
+
+    /**
+     * Write out and empty the write buffer
+     * @param channel the open file
+     * @param buffer the write buffer
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Get the amount of records dropped because the ring was full
+     * @return the amount of dropped records
+     */
+    public final long getDropped(){
+        return dropped;
+    }
+
+    /**
+     * Get the exception that stopped recording, because the file could not be written or the
+     * recorder was started for a different amount of motors
+     * @return the exception, or null if recording has not failed
+     */
+    public final Exception getFailure(){
+        return failure;
+    }
+
+    /**
+     * Stop recording, write every record already kept and close the file. Called from the thread
+     * that records, or once it has stopped recording.
+     * @param timeout the longest time to wait for the file to be written (ms)
+     * @return true if the file has been completely written and closed
+     * Postcondition: no more records are kept
+     */
+    public final synchronized boolean stop(long timeout){
+        stopped = true;
+        if(drainer == null)
+            return failure == null;
+        LockSupport.unpark(drainer);
+        try{
+            drainer.join(timeout);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        return !drainer.isAlive() && failure == null;
+    }
+}
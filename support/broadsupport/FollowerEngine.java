@@ -0,0 +1,240 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.LoopPhase;
+
+import java.util.Arrays;
+
+/**
+ * Follows the paths of a PathSequenceFather on any amount of motors. What differs between
+ * drivetrains is only how a WheelCommand is mixed into motor velocities, which is left to a
+ * Kinematics object. A Kalman filter channel and PIDF controller is created per motor up front and reset
+ * between paths, so following does not allocate once it has started.
+ * Motors and time are read through VelocityMotor and Clock, so the same loop drives the robot or a
+ * simulation running faster than real time.
+ */
+public class FollowerEngine {
+    /**
+     * Whether engines created from now on filter velocities with the unbiased model, Robot's setting by default
+     */
+    private static boolean unbiasedVelocityFilter = Robot.velocityFilterUnbiased;
+
+    public static void setUnbiasedVelocityFilter(boolean unbiasedVelocityFilter){
+        FollowerEngine.unbiasedVelocityFilter = unbiasedVelocityFilter;
+    }
+    public static boolean getUnbiasedVelocityFilter(){
+        return unbiasedVelocityFilter;
+    }
+
+    /**
+     * Motors to drive, in the order the kinematics writes their targets
+     */
+    private final VelocityMotor[] motors;
+
+    /**
+     * Time the paths are followed against
+     */
+    private final Clock clock;
+
+    /**
+     * Converts path commands into motor velocities
+     */
+    private final Kinematics kinematics;
+
+    /**
+     * Kalman filter channel for each motor's measured velocity
+     */
+    private final KalmanBank filters;
+
+    /**
+     * PIDF controller commanding each motor's velocity
+     */
+    private final PIDFController[] controllers;
+
+    /**
+     * Target velocity of each motor, rewritten every cycle
+     */
+    private final double[] targets;
+
+    /**
+     * Measured, then filtered, velocity of each motor, rewritten every cycle
+     */
+    private final double[] velocities;
+
+    /**
+     * PID correction of each motor, rewritten every cycle
+     */
+    private final double[] corrections;
+
+    /**
+     * Velocity commanded to each motor, rewritten every cycle
+     */
+    private final double[] commands;
+
+    /**
+     * What the current path commands, rewritten every cycle
+     */
+    private final WheelCommand command = new WheelCommand();
+
+    /**
+     * Create an engine for a drivetrain following in real time
+     * @param motors the motors, ordered as the kinematics expects
+     * @param kinematics how to convert path commands into motor velocities
+     * Precondition:  there is one motor for each motor of the kinematics
+     */
+    public FollowerEngine(VelocityMotor[] motors, Kinematics kinematics){
+        this(motors, kinematics, Clock.SYSTEM);
+    }
+
+    /**
+     * Create an engine for a drivetrain
+     * @param motors the motors, ordered as the kinematics expects
+     * @param kinematics how to convert path commands into motor velocities
+     * @param clock the time to follow the paths against
+     * Precondition:  there is one motor for each motor of the kinematics
+     */
+    public FollowerEngine(VelocityMotor[] motors, Kinematics kinematics, Clock clock){
+        if(motors == null || kinematics == null || clock == null)
+            throw new RuntimeException("motors, kinematics and clock in FollowerEngine.FollowerEngine(...) must not be null!");
+        if(motors.length != kinematics.getMotorCount())
+            throw new RuntimeException("The amount of motors in FollowerEngine.FollowerEngine(...) must match the kinematics!");
+
+        this.motors = motors;
+        this.kinematics = kinematics;
+        this.clock = clock;
+
+        // A constant velocity measured directly keeps the filtered velocity in the same units as the target
+        if(unbiasedVelocityFilter)
+            filters = new KalmanBank(motors.length, Robot.velocityFilterR, Robot.velocityFilterQ, 1, 0, 1);
+        else
+            filters = new KalmanBank(motors.length);
+        if(Robot.kalmanSteadyState)
+            filters.enableSteadyState(true);
+        controllers = new PIDFController[motors.length];
+        for(int i=0;i<motors.length;i++)
+            controllers[i] = new PIDFController();
+        targets = new double[motors.length];
+        velocities = new double[motors.length];
+        corrections = new double[motors.length];
+        commands = new double[motors.length];
+    }
+
+    /**
+     * Actually moves the robot along every Path of a sequence.
+     * @param sequence the sequence to follow
+     * Precondition:  no motor is null
+     * Postcondition: every path has been executed
+     */
+    public final void follow(PathSequenceFather sequence){
+        for(VelocityMotor motor : motors)
+            if(motor == null)
+                throw new RuntimeException("All motor objects in FollowerEngine.follow(...) must not be null!");
+
+        // Closes the loop on pose if the sequence has a tracker
+        PoseTracker tracker = sequence.getPoseTracker();
+        if(tracker != null)
+            tracker.begin();
+
+        // Markers placed along the trajectory are checked inline, without a thread of their own
+        ProgressMarkerList markers = sequence.getProgressMarkers();
+
+        // Timings only cover this follow
+        LoopProfiler profiler = sequence.getLoopProfiler();
+        if(profiler != null)
+            profiler.reset();
+
+        // Records every cycle from a background thread, sized for these motors. A recorder that
+        // cannot record them reports why through getFailure() and auto goes on without it
+        FlightRecorder recorder = sequence.getFlightRecorder();
+        if(recorder != null && !recorder.start(motors.length))
+            recorder = null;
+
+        // Start from rest, the first path may have to be waited for
+        Arrays.fill(commands, 0);
+
+        try{
+            // Go through every path in the trajectory
+            for(int i=0;i<sequence.getPathCount();i++){
+                Path path = sequence.getPath(i);
+
+                // Keep moving at the last command rather than stopping mid sequence until the path has
+                // been built, which only happens if it was replaced too late to finish building ahead
+                if(!sequence.isReady(path)){
+                    for(int m=0;m<motors.length;m++)
+                        motors[m].setVelocity(commands[m]);
+                    while(!sequence.isReady(path))
+                        Thread.yield();
+                }
+
+                // Build the next path in the background while this one is followed
+                sequence.prefetch(i+1);
+
+                // Start each path with fresh estimates and no accumulated error
+                filters.reset();
+                for(PIDFController controller : controllers)
+                    controller.reset();
+
+                // Used to only consider the time into this individual path
+                long offset = clock.nanoTime();
+                if(tracker != null)
+                    tracker.beginPath();
+                if(markers != null)
+                    markers.beginPath(i, path);
+
+                // Execute the path
+                while(!path.getCompleted()){
+                    if(profiler != null)
+                        profiler.beginCycle();
+
+                    // Get the velocities from what the path says the end result velocities should be, all at one time
+                    // Read the clock once per cycle so the controllers and the path see the same time
+                    long now = clock.nanoTime();
+                    double time = (now-offset)/1E9;
+                    path.sample(time, command);
+                    if(markers != null)
+                        markers.update(time, command);
+                    if(tracker != null)
+                        tracker.correct(time, command);
+                    kinematics.toMotorVelocities(command, targets);
+                    if(profiler != null)
+                        profiler.mark(LoopPhase.TRAJECTORY);
+
+                    for(int m=0;m<motors.length;m++)
+                        velocities[m] = motors[m].getVelocity();
+                    if(profiler != null)
+                        profiler.mark(LoopPhase.IO);
+
+                    // Filter every measured velocity in one pass
+                    filters.filter(velocities, velocities);
+
+                    // Feed forward the target and correct using PIDF
+                    for(int m=0;m<motors.length;m++){
+                        commands[m] = controllers[m].update(targets[m], Double.NaN, velocities[m], now);
+                        corrections[m] = controllers[m].getLastFeedback();
+                    }
+                    if(profiler != null)
+                        profiler.mark(LoopPhase.CONTROL);
+
+                    // Write the velocities to the motors
+                    for(int m=0;m<motors.length;m++)
+                        motors[m].setVelocity(commands[m]);
+                    if(profiler != null)
+                        profiler.mark(LoopPhase.IO);
+
+                    if(recorder != null)
+                        recorder.record(now, i, targets, velocities, corrections, commands);
+                    if(profiler != null)
+                        profiler.endCycle();
+                }
+                if(markers != null)
+                    markers.finishPath();
+
+                // Set each path back to an unused state so the trajectory could be run again
+                sequence.resetPaths();
+            }
+        }
+        finally{
+            // Nothing is left to build ahead, even if following failed
+            sequence.stopLookahead();
+        }
+    }
+}
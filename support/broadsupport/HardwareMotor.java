@@ -0,0 +1,53 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import static org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS;
+
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+/**
+ * Drives a real DcMotorEx as a VelocityMotor, in radians.
+ */
+public class HardwareMotor implements VelocityMotor {
+    /**
+     * The motor being driven
+     */
+    private final DcMotorEx motor;
+
+    /**
+     * Drive a motor
+     * @param motor the motor
+     * Precondition:  motor is not null
+     */
+    public HardwareMotor(DcMotorEx motor){
+        if(motor == null)
+            throw new RuntimeException("motor in HardwareMotor.HardwareMotor(...) must not be null!");
+        this.motor = motor;
+    }
+
+    /**
+     * Wrap a motor that may not have been assigned yet
+     * @param motor the motor, may be null
+     * @return the wrapped motor, or null if motor is null
+     */
+    public static HardwareMotor wrap(DcMotorEx motor){
+        return motor == null ? null : new HardwareMotor(motor);
+    }
+
+    @Override
+    public final double getVelocity(){
+        return motor.getVelocity(RADIANS);
+    }
+
+    @Override
+    public final void setVelocity(double velocity){
+        motor.setVelocity(velocity, RADIANS);
+    }
+
+    /**
+     * Get the motor being driven
+     * @return the motor
+     */
+    public final DcMotorEx getMotor(){
+        return motor;
+    }
+}
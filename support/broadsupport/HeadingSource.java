@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Absolute heading sensor, such as the Control Hub's IMU, used by ThreeWheelLocalizer to correct
+ * the heading integrated from the dead wheels.
+ * Implement it with a lambda, for example () -> imu.getRobotYawPitchRollAngles().getYaw(AngleUnit.RADIANS)
+ */
+public interface HeadingSource {
+    /**
+     * Read the heading, counterclockwise positive
+     * @return the heading (rad)
+     */
+    double getHeading();
+}
@@ -0,0 +1,303 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.util.Arrays;
+
+/**
+ * Many 1D Kalman Filters, one per channel, filtered together in a single loop.
+ * Each channel behaves exactly like its own KalmanFilter, but the state, covariance, noise and
+ * vectors of every channel are kept in parallel primitive arrays instead of one object per channel,
+ * so filtering every motor of a drivetrain is one pass over a few contiguous arrays.
+ * Like KalmanFilter, R is process noise and Q is measurement noise.
+ */
+public class KalmanBank {
+    /**
+     * Amount of channels
+     */
+    private final int channels;
+
+    // Per channel values, index i is channel i
+    /**
+     * Vector A
+     */
+    private final double[] A;
+    /**
+     * Vector B
+     */
+    private final double[] B;
+    /**
+     * Vector C
+     */
+    private final double[] C;
+    /**
+     * Process noise
+     */
+    private final double[] R;
+    /**
+     * Measurement noise
+     */
+    private final double[] Q;
+    /**
+     * Covariance variable, NaN until the channel's first measurement
+     */
+    private final double[] cov;
+    /**
+     * State variable, NaN until the channel's first measurement
+     */
+    private final double[] x;
+
+    /**
+     * Precomputed gain of every channel for every correction, step k of channel i at k*channels + i,
+     * null when the steady state mode is disabled
+     */
+    private double[] gainSchedule = null;
+    /**
+     * Amount of corrections in the gain schedule
+     */
+    private int scheduleLength = 0;
+    /**
+     * Whether the gain schedule holds the gains before convergence as well as the converged gains
+     */
+    private boolean transientGains = false;
+    /**
+     * Amount of corrections made on each channel since its first measurement
+     */
+    private final int[] steps;
+
+    /**
+     * Create a bank whose channels all use the Kalman Filter coefficients in Robot
+     * @param channels the amount of channels
+     */
+    public KalmanBank(int channels){
+        this(channels, Robot.R, Robot.Q, Robot.A, Robot.B, Robot.C);
+    }
+
+    /**
+     * Create a bank whose channels all start with the same coefficients
+     * @param channels the amount of channels
+     * @param R is process noise
+     * @param Q is measurement noise
+     * @param A is state vector
+     * @param B is control vector
+     * @param C is measurement vector
+     * Precondition:  channels is greater than zero
+     */
+    public KalmanBank(int channels, double R, double Q, double A, double B, double C){
+        if(channels < 1)
+            throw new RuntimeException("channels in KalmanBank.KalmanBank(...) must be greater than zero!");
+
+        this.channels = channels;
+        this.A = filled(channels, A);
+        this.B = filled(channels, B);
+        this.C = filled(channels, C);
+        this.R = filled(channels, R);
+        this.Q = filled(channels, Q);
+        this.cov = filled(channels, Double.NaN);
+        this.x = filled(channels, Double.NaN);
+        this.steps = new int[channels];
+    }
+
+    /**
+     * Create an array with every value set
+     * @param length the length of the array
+     * @param value the value of every element
+     * @return the array
+     */
+    private static double[] filled(int length, double value){
+        double[] array = new double[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /**
+     * Feed a measurement for every channel into the bank without a control input.
+     * @param measurements the measured value of each channel
+     * @param out is filled with the filtered value of each channel, may be the same array as measurements
+     * Precondition:  both arrays hold at least one value per channel
+     * Postcondition: out holds the same values as filtering each channel with its own KalmanFilter
+     */
+    public final void filter(double[] measurements, double[] out){
+        if(measurements.length < channels || out.length < channels)
+            throw new RuntimeException("measurements and out in KalmanBank.filter(...) must hold a value for every channel!");
+
+        if(gainSchedule != null){
+            filterSteadyState(measurements, null, out);
+            return;
+        }
+
+        for(int i=0;i<channels;i++){
+            double measurement = measurements[i];
+            double c = C[i];
+            double state;
+            if(Double.isNaN(x[i])){
+                state = (1 / c) * measurement;
+                cov[i] = (1 / c) * Q[i] * (1 / c);
+            }else {
+                double a = A[i];
+                double predX = a * x[i];
+                double predCov = ((a * cov[i]) * a) + R[i];
+
+                // Kalman gain
+                double K = predCov * c * (1 / ((c * predCov * c) + Q[i]));
+
+                // Correction
+                state = predX + K * (measurement - (c * predX));
+                cov[i] = predCov - (K * c * predCov);
+            }
+            x[i] = state;
+            out[i] = state;
+        }
+    }
+
+    /**
+     * Feed a measurement and control input for every channel into the bank.
+     * @param measurements the measured value of each channel
+     * @param u the controlled input value of each channel
+     * @param out is filled with the filtered value of each channel, may be the same array as measurements
+     * Precondition:  every array holds at least one value per channel
+     * Postcondition: out holds the same values as filtering each channel with its own KalmanFilter
+     */
+    public final void filter(double[] measurements, double[] u, double[] out){
+        if(measurements.length < channels || u.length < channels || out.length < channels)
+            throw new RuntimeException("measurements, u and out in KalmanBank.filter(...) must hold a value for every channel!");
+
+        if(gainSchedule != null){
+            filterSteadyState(measurements, u, out);
+            return;
+        }
+
+        for(int i=0;i<channels;i++){
+            double measurement = measurements[i];
+            double c = C[i];
+            double state;
+            if(Double.isNaN(x[i])){
+                state = (1 / c) * measurement;
+                cov[i] = (1 / c) * Q[i] * (1 / c);
+            }else {
+                double a = A[i];
+                double predX = (a * x[i]) + (B[i] * u[i]);
+                double predCov = ((a * cov[i]) * a) + R[i];
+
+                // Kalman gain
+                double K = predCov * c * (1 / ((c * predCov * c) + Q[i]));
+
+                // Correction
+                state = predX + K * (measurement - (c * predX));
+                cov[i] = predCov - (K * c * predCov);
+            }
+            x[i] = state;
+            out[i] = state;
+        }
+    }
+
+    /**
+     * Filter every channel with its precomputed gains, skipping the covariance.
+     * @param measurements the measured value of each channel
+     * @param u the controlled input value of each channel, or null for none
+     * @param out is filled with the filtered value of each channel
+     */
+    private void filterSteadyState(double[] measurements, double[] u, double[] out){
+        int last = scheduleLength-1;
+        for(int i=0;i<channels;i++){
+            double measurement = measurements[i];
+            double c = C[i];
+            double state;
+            if(Double.isNaN(x[i])){
+                state = (1 / c) * measurement;
+                steps[i] = 0;
+            }else {
+                double predX = A[i] * x[i];
+                if(u != null)
+                    predX += B[i] * u[i];
+                int step = steps[i];
+                double K = gainSchedule[(step < last ? step : last)*channels + i];
+                steps[i] = step+1;
+                state = predX + K * (measurement - (c * predX));
+            }
+            x[i] = state;
+            out[i] = state;
+        }
+    }
+
+    /**
+     * Filter every channel with precomputed gains instead of propagating the covariance, as
+     * KalmanFilter.enableSteadyState(...) does for a single channel.
+     * @param transientGains true to also use the exact gains before convergence, false to use the
+     *                       converged gains from the first correction on
+     * Postcondition: the gains are recomputed whenever a channel's coefficients change
+     */
+    public final void enableSteadyState(boolean transientGains){
+        double[][] schedules = new double[channels][];
+        int length = 0;
+        for(int i=0;i<channels;i++){
+            schedules[i] = KalmanFilter.computeGainSchedule(A[i], C[i], R[i], Q[i], transientGains);
+            length = Math.max(length, schedules[i].length);
+        }
+
+        // Channels that converge sooner keep their converged gain until the schedule ends
+        double[] schedule = new double[length*channels];
+        for(int i=0;i<channels;i++)
+            for(int k=0;k<length;k++)
+                schedule[k*channels + i] = schedules[i][Math.min(k, schedules[i].length-1)];
+
+        this.scheduleLength = length;
+        this.gainSchedule = schedule;
+        this.transientGains = transientGains;
+    }
+
+    /**
+     * Go back to propagating the covariance every sample.
+     * Postcondition: the next measurement of every channel starts a new estimate
+     */
+    public final void disableSteadyState(){
+        this.gainSchedule = null;
+        reset();
+    }
+
+    /**
+     * Forget the state of every channel, keeping the noise and vectors.
+     * Postcondition: every channel behaves as if it had just been constructed
+     */
+    public final void reset(){
+        Arrays.fill(x, Double.NaN);
+        Arrays.fill(cov, Double.NaN);
+        Arrays.fill(steps, 0);
+    }
+
+    /**
+     * Set the coefficients of one channel
+     * @param channel the index of the channel
+     * @param R is process noise
+     * @param Q is measurement noise
+     * @param A is state vector
+     * @param B is control vector
+     * @param C is measurement vector
+     */
+    public final void setChannel(int channel, double R, double Q, double A, double B, double C){
+        if(channel < 0 || channel >= channels)
+            throw new RuntimeException("channel must be a valid index in KalmanBank.setChannel(...)!");
+        this.R[channel] = R;
+        this.Q[channel] = Q;
+        this.A[channel] = A;
+        this.B[channel] = B;
+        this.C[channel] = C;
+        if(gainSchedule != null)
+            enableSteadyState(transientGains);
+    }
+
+    /**
+     * Return the last filtered value of a channel.
+     * @param channel the index of the channel
+     * @return the last filtered value
+     */
+    public final double lastMeasurement(int channel){
+        return x[channel];
+    }
+
+    /**
+     * Get the amount of channels
+     * @return the amount of channels
+     */
+    public final int getChannelCount(){
+        return channels;
+    }
+}
@@ -1,5 +1,7 @@
 package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 
+import java.util.Arrays;
+
 /**
  * A Kalman Filter for 1D data.
  * It can be used for multiple dimensioned data, however a separate
@@ -46,6 +48,31 @@ public class KalmanFilter {
      */
     private double x = Double.NaN;
 
+    /**
+     * Most gains computed for a gain schedule before giving up on convergence
+     */
+    private static final int MAX_SCHEDULE_LENGTH = 1000;
+
+    /**
+     * Relative change in gain below which the gain is considered converged
+     */
+    private static final double SCHEDULE_TOLERANCE = 1E-12;
+
+    /**
+     * Precomputed Kalman gains used instead of propagating the covariance, null when disabled
+     */
+    private double[] gainSchedule = null;
+
+    /**
+     * Amount of corrections made since the first measurement, indexes the gain schedule
+     */
+    private int step = 0;
+
+    /**
+     * Whether the gain schedule holds the gains before convergence as well as the converged gain
+     */
+    private boolean transientGains = false;
+
     /**
      * Kalman Filter for driving motors during pathing
      */
@@ -102,6 +129,12 @@ public class KalmanFilter {
         if (Double.isNaN(this.x)) {
             this.x = (1 / this.C) * measurement;
             this.cov = (1 / this.C) * this.Q * (1 / this.C);
+            this.step = 0;
+        }else if (this.gainSchedule != null) {
+            // The gain does not depend on the measurements, so skip the covariance entirely
+            double predX = (this.A * this.x) + (this.B * u);
+            double K = this.gainSchedule[Math.min(this.step++, this.gainSchedule.length-1)];
+            this.x = predX + K * (measurement - (this.C * predX));
         }else {
             double predX = (this.A * this.x) + (this.B * u);
             double predCov = ((this.A * this.cov) * this.A) + this.R;
@@ -128,6 +161,12 @@ public class KalmanFilter {
         if (Double.isNaN(this.x)) {
             this.x = (1 / this.C) * measurement;
             this.cov = (1 / this.C) * this.Q * (1 / this.C);
+            this.step = 0;
+        }else if (this.gainSchedule != null) {
+            // The gain does not depend on the measurements, so skip the covariance entirely
+            double predX = (this.A * this.x) + (this.B * u);
+            double K = this.gainSchedule[Math.min(this.step++, this.gainSchedule.length-1)];
+            this.x = predX + K * (measurement - (this.C * predX));
         }else {
             double predX = (this.A * this.x) + (this.B * u);
             double predCov = ((this.A * this.cov) * this.A) + this.R;
@@ -143,6 +182,76 @@ public class KalmanFilter {
     }
 
 
+    /**
+     * Forget the state so the next measurement starts a new estimate, keeping the noise and vectors.
+     * Postcondition: the filter behaves as if it had just been constructed
+     */
+    public final void reset(){
+        this.x = Double.NaN;
+        this.cov = Double.NaN;
+        this.step = 0;
+    }
+
+    /**
+     * Filter with precomputed gains instead of propagating the covariance every sample. With constant
+     * noise and vectors the gain only depends on how many samples have been taken, and converges
+     * after a handful of them.
+     * @param transientGains true to also use the exact gains before convergence, false to use the
+     *                       converged gain from the first correction on
+     * Postcondition: filter(...) costs a few multiply-adds per sample; the gains are recomputed
+     *                whenever the noise is changed
+     */
+    public final void enableSteadyState(boolean transientGains){
+        this.gainSchedule = computeGainSchedule(this.A, this.C, this.R, this.Q, transientGains);
+        this.transientGains = transientGains;
+    }
+
+    /**
+     * Go back to propagating the covariance every sample.
+     * Postcondition: the next measurement starts a new estimate
+     */
+    public final void disableSteadyState(){
+        this.gainSchedule = null;
+        reset();
+    }
+
+    /**
+     * Whether filter(...) uses precomputed gains
+     * @return true if the steady state mode is enabled
+     */
+    public final boolean isSteadyState(){
+        return this.gainSchedule != null;
+    }
+
+    /**
+     * Compute the gain of every correction after the first measurement until the gain converges,
+     * exactly as filter(...) would compute it.
+     * @param A is state vector
+     * @param C is measurement vector
+     * @param R is process noise
+     * @param Q is measurement noise
+     * @param transientGains true to return every gain, false to return only the converged gain
+     * @return the gains, the last of which is used for every later correction
+     */
+    static double[] computeGainSchedule(double A, double C, double R, double Q, boolean transientGains){
+        double[] gains = new double[MAX_SCHEDULE_LENGTH];
+        double cov = (1 / C) * Q * (1 / C);
+        int length = 0;
+        while(length < MAX_SCHEDULE_LENGTH){
+            double predCov = ((A * cov) * A) + R;
+            double K = predCov * C * (1 / ((C * predCov * C) + Q));
+            cov = predCov - (K * C * predCov);
+
+            gains[length++] = K;
+            if(length > 1 && Math.abs(K - gains[length-2]) <= SCHEDULE_TOLERANCE*Math.abs(K))
+                break;
+        }
+        if(Double.isNaN(gains[length-1]))
+            throw new RuntimeException("The noise and vectors in KalmanFilter.computeGainSchedule(...) do not give a valid gain!");
+
+        return transientGains ? Arrays.copyOf(gains, length) : new double[]{gains[length-1]};
+    }
+
     /**
      * Return the last measurement taken.
      * @return the last measurement
@@ -161,6 +270,8 @@ public class KalmanFilter {
     // Set measurement noise
     public final void setMeasurementNoise(double noise){
         this.Q = noise;
+        if(this.gainSchedule != null)
+            enableSteadyState(this.transientGains);
     }
 
     /**
@@ -170,5 +281,7 @@ public class KalmanFilter {
      */
     public final void setProcessNoise(double noise){
         this.R = noise;
+        if(this.gainSchedule != null)
+            enableSteadyState(this.transientGains);
     }
 }
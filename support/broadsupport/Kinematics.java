@@ -0,0 +1,20 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * An interface to turn what a Path commands into a target velocity for every motor of a drivetrain.
+ * Used by the FollowerEngine so that each drivetrain only has to describe how it mixes velocities.
+ */
+public interface Kinematics {
+    /**
+     * the amount of motors this drivetrain drives
+     * @return the motor count
+     */
+    int getMotorCount();
+
+    /**
+     * compute the target velocity of every motor, must not allocate since it runs every cycle
+     * @param command what the path commands at this time
+     * @param targets is filled with one target angular velocity (rad/s) per motor, in motor order
+     */
+    void toMotorVelocities(WheelCommand command, double[] targets);
+}
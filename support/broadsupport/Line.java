@@ -3,6 +3,7 @@ package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 import org.firstinspires.ftc.teamcode.auto.support.enumerations.Direction;
 import org.firstinspires.ftc.teamcode.auto.support.enumerations.DrivetrainSymmetry;
 import org.firstinspires.ftc.teamcode.auto.support.enumerations.PathType;
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.ProfileType;
 
 /**
  * Creates a list of velocities for the wheels on a robot to move at.
@@ -29,6 +30,26 @@ public class Line extends Path {
      */
     private double executeTime;
 
+    /**
+     * Which velocity profile this path follows
+     */
+    private ProfileType profileType = ProfileType.SINE;
+
+    /**
+     * Maximum acceleration for the trapezoidal and S-curve profiles
+     */
+    private double maxAcceleration = 0;
+
+    /**
+     * Maximum jerk for the S-curve profile
+     */
+    private double maxJerk = Double.POSITIVE_INFINITY;
+
+    /**
+     * The trapezoidal or S-curve profile, computed when built
+     */
+    private MotionProfile profile;
+
 
     /**
      * Constructor for this Line object. Here it make an assumption since it has not been given
@@ -66,13 +87,61 @@ public class Line extends Path {
     }
 
 
+    /**
+     * Follow a trapezoidal profile: accelerate at a constant rate up to the maximum velocity,
+     * hold it, then decelerate. Reaches the end sooner than the default sine profile.
+     * @param maxAcceleration is the maximum acceleration (m/s^2)
+     * Precondition:  maxAcceleration and the maximum velocity are greater than zero
+     * Postcondition: the path must be built again
+     */
+    public final void setTrapezoidalProfile(double maxAcceleration){
+        if(maxAcceleration <= 0 || maxVelocity <= 0)
+            throw new RuntimeException("The acceleration and velocity must be greater than zero in Line.setTrapezoidalProfile(...)!");
+        profileType = ProfileType.TRAPEZOIDAL;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk = Double.POSITIVE_INFINITY;
+        setBuilt(false);
+    }
+
+    /**
+     * Follow a jerk-limited S-curve profile: like the trapezoidal profile but the acceleration
+     * ramps up and down at the maximum jerk instead of changing instantly.
+     * @param maxAcceleration is the maximum acceleration (m/s^2)
+     * @param maxJerk is the maximum jerk (m/s^3)
+     * Precondition:  maxAcceleration, maxJerk and the maximum velocity are greater than zero
+     * Postcondition: the path must be built again
+     */
+    public final void setSCurveProfile(double maxAcceleration, double maxJerk){
+        if(maxAcceleration <= 0 || maxJerk <= 0 || maxVelocity <= 0)
+            throw new RuntimeException("The acceleration, jerk and velocity must be greater than zero in Line.setSCurveProfile(...)!");
+        profileType = ProfileType.SCURVE;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk = maxJerk;
+        setBuilt(false);
+    }
+
+    /**
+     * Get which velocity profile this path follows
+     * @return the profile type
+     */
+    public final ProfileType getProfileType(){
+        return profileType;
+    }
+
     /**
      * Build the line trajectory.
      * Postcondition: this path has been built successfully
      */
     @Override
     public final void build(){
-        executeTime = 3.14159265*Math.abs(distance)/(2*maxVelocity);
+        if(profileType == ProfileType.SINE){
+            profile = null;
+            executeTime = 3.14159265*Math.abs(distance)/(2*maxVelocity);
+        }
+        else{
+            profile = new MotionProfile(Math.abs(distance), maxVelocity, maxAcceleration, maxJerk);
+            executeTime = profile.getTotalTime();
+        }
         setBuilt(true);
     }
 
@@ -92,6 +161,8 @@ public class Line extends Path {
      */
     protected double getVelocity(double t){
         if(t < executeTime){
+            if(profile != null)
+                return distance > 0 ? profile.getVelocity(t) : -1*profile.getVelocity(t);
             if(distance > 0)
                 return maxVelocity*Math.sin(3.1415925*t/ executeTime);
             return -1*maxVelocity*Math.sin(3.1415925*t/ executeTime);
@@ -121,6 +192,28 @@ public class Line extends Path {
         return getVelocity(currentTime)*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 1);
     }
 
+    /**
+     * Sample both linear velocities while computing the profile only once
+     * @param currentTime the current time
+     * @param command the holder to write the velocities to
+     */
+    @Override
+    protected void sampleAnalytic(double currentTime, WheelCommand command){
+        double v = getVelocity(currentTime);
+        command.set(v*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 0),
+                v*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 1),
+                0, 0, getCompleted());
+    }
+
+    /**
+     * Get the parameters the line was constructed with
+     * @return the distance, maximum velocity and profile limits
+     */
+    @Override
+    protected double[] getParameters(){
+        return new double[]{distance, maxVelocity, profileType.ordinal(), maxAcceleration, maxJerk};
+    }
+
     /**
      * Get what type of path this is. Useful for debugging
      * @return The type of path, in this case a line.
@@ -0,0 +1,12 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Anything that knows where the robot is, such as ThreeWheelLocalizer.
+ */
+public interface Localizer {
+    /**
+     * Copy the latest pose without blocking
+     * @param out the pose to fill in
+     */
+    void getPose(Pose out);
+}
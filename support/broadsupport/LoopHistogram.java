@@ -0,0 +1,136 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in fixed memory. Buckets are spaced logarithmically: every power of two is
+ * split into eight buckets, so any value is known to within 12.5% from a nanosecond up to centuries,
+ * with a few kilobytes of counts and no allocation while recording.
+ * Recorded by a single thread; reading percentiles from another thread gives approximate results.
+ */
+public class LoopHistogram {
+    /**
+     * log2 of the amount of buckets per power of two
+     */
+    private static final int SUB_BITS = 3;
+    /**
+     * Amount of buckets per power of two
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**
+     * Amount of buckets needed to cover every positive long
+     */
+    private static final int BUCKETS = (64 - SUB_BITS + 1)*SUB_BUCKETS;
+
+    /**
+     * Amount of values in each bucket
+     */
+    private final long[] counts = new long[BUCKETS];
+    /**
+     * Amount of values recorded
+     */
+    private long count = 0;
+    /**
+     * Sum of the values recorded, for the mean
+     */
+    private long sum = 0;
+    /**
+     * Largest value recorded
+     */
+    private long max = 0;
+
+    /**
+     * Record a value
+     * @param value the value, negative values are recorded as 0
+     */
+    public final void record(long value){
+        if(value < 0)
+            value = 0;
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        if(value > max)
+            max = value;
+    }
+
+    /**
+     * Find the bucket a value falls in
+     * @param value the value, not negative
+     * @return the index of the bucket
+     */
+    private static int bucket(long value){
+        // Values below SUB_BUCKETS get a bucket each
+        if(value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1)*SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Get the largest value a bucket holds
+     * @param bucket the index of the bucket
+     * @return the largest value of the bucket
+     */
+    private static long bucketMax(int bucket){
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket/SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Get the value below which a fraction of the recorded values fall
+     * @param fraction the fraction, 0.5 for the median and 0.99 for the 99th percentile
+     * @return the value, rounded up to its bucket and never above the maximum, 0 if nothing was recorded
+     */
+    public final long percentile(double fraction){
+        if(count == 0)
+            return 0;
+        long rank = (long)Math.ceil(Math.max(0, Math.min(1, fraction))*count);
+        if(rank < 1)
+            rank = 1;
+        long seen = 0;
+        for(int i=0;i<BUCKETS;i++){
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(bucketMax(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Get the largest value recorded
+     * @return the maximum, 0 if nothing was recorded
+     */
+    public final long getMax(){
+        return max;
+    }
+
+    /**
+     * Get the mean of the values recorded
+     * @return the mean, 0 if nothing was recorded
+     */
+    public final double getMean(){
+        return count == 0 ? 0 : (double)sum/count;
+    }
+
+    /**
+     * Get the amount of values recorded
+     * @return the count
+     */
+    public final long getCount(){
+        return count;
+    }
+
+    /**
+     * Forget every value recorded
+     */
+    public final void reset(){
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+}
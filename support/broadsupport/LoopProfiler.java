@@ -0,0 +1,173 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.LoopPhase;
+
+import java.util.Arrays;
+
+/**
+ * Times every cycle of the follower and each part of it into a LoopHistogram per LoopPhase, and
+ * shows the median, 99th percentile and maximum of each on the telemetry a few times a second.
+ * Durations are real time read with System.nanoTime(), even when following against a simulated
+ * clock, so they show what the code costs. Recording is a clock read and a few array writes per
+ * phase, and every phase is recorded once per cycle with its total time; sending telemetry is
+ * slow, so it only happens once per publish period.
+ */
+public class LoopProfiler {
+    /**
+     * Default time between telemetry updates (s)
+     */
+    private static final double DEFAULT_PUBLISH_PERIOD = 0.5;
+
+    /**
+     * Histogram of each phase, indexed by ordinal
+     */
+    private final LoopHistogram[] histograms = new LoopHistogram[LoopPhase.values().length];
+
+    /**
+     * Where summaries are shown, null to only record
+     */
+    private final Telemetry telemetry;
+
+    /**
+     * Time between telemetry updates (ns)
+     */
+    private final long publishPeriod;
+
+    /**
+     * Time spent in each phase so far this cycle, indexed by ordinal, -1 if it has not been marked
+     */
+    private final long[] cycleTimes = new long[LoopPhase.values().length];
+
+    /**
+     * Start of the current cycle, -1 before the first
+     */
+    private long cycleStart = -1;
+    /**
+     * Time of the last phase boundary
+     */
+    private long lastMark;
+    /**
+     * Time of the last telemetry update
+     */
+    private long lastPublish;
+
+    /**
+     * Profile the follower, showing summaries on the telemetry twice a second
+     * @param telemetry where to show summaries, or null to only record
+     */
+    public LoopProfiler(Telemetry telemetry){
+        this(telemetry, DEFAULT_PUBLISH_PERIOD);
+    }
+
+    /**
+     * Profile the follower
+     * @param telemetry where to show summaries, or null to only record
+     * @param publishPeriod the time between telemetry updates (s)
+     * Precondition:  publishPeriod is greater than zero
+     */
+    public LoopProfiler(Telemetry telemetry, double publishPeriod){
+        if(!(publishPeriod > 0))
+            throw new RuntimeException("publishPeriod in LoopProfiler.LoopProfiler(...) must be greater than zero!");
+        this.telemetry = telemetry;
+        this.publishPeriod = (long)(publishPeriod*1E9);
+        for(int i=0;i<histograms.length;i++)
+            histograms[i] = new LoopHistogram();
+        Arrays.fill(cycleTimes, -1);
+        lastPublish = System.nanoTime();
+    }
+
+    /**
+     * Start a cycle, recording the loop period since the last one started
+     */
+    public final void beginCycle(){
+        long now = System.nanoTime();
+        if(cycleStart >= 0)
+            histograms[LoopPhase.LOOP.ordinal()].record(now - cycleStart);
+        cycleStart = now;
+        lastMark = now;
+        Arrays.fill(cycleTimes, -1);
+    }
+
+    /**
+     * End a phase of the cycle, adding the time since the cycle or the previous phase ended to it.
+     * A phase marked several times in a cycle, like reading and then writing the motors, is
+     * recorded once with the total.
+     * @param phase the phase that just ended, not LOOP
+     */
+    public final void mark(LoopPhase phase){
+        if(phase == LoopPhase.LOOP)
+            throw new RuntimeException("LOOP in LoopProfiler.mark(...) is recorded by LoopProfiler.beginCycle()!");
+        long now = System.nanoTime();
+        int i = phase.ordinal();
+        cycleTimes[i] = Math.max(cycleTimes[i], 0) + (now - lastMark);
+        lastMark = now;
+    }
+
+    /**
+     * End a cycle, recording the time of each phase marked in it and updating the telemetry if the
+     * publish period has passed
+     */
+    public final void endCycle(){
+        for(int i=0;i<cycleTimes.length;i++)
+            if(cycleTimes[i] >= 0){
+                histograms[i].record(cycleTimes[i]);
+                cycleTimes[i] = -1;
+            }
+        if(telemetry == null)
+            return;
+        long now = System.nanoTime();
+        if(now - lastPublish < publishPeriod)
+            return;
+        lastPublish = now;
+        publish();
+    }
+
+    /**
+     * Show the summary of every phase on the telemetry now, in microseconds
+     * Precondition:  the profiler was created with a telemetry
+     */
+    public final void publish(){
+        if(telemetry == null)
+            throw new RuntimeException("LoopProfiler.publish() needs a telemetry to publish to!");
+        for(LoopPhase phase : LoopPhase.values()){
+            LoopHistogram histogram = histograms[phase.ordinal()];
+            telemetry.addData(phase.name().toLowerCase() + " (us)", "p50 %.0f  p99 %.0f  max %.0f  n %d",
+                    histogram.percentile(0.5)/1E3, histogram.percentile(0.99)/1E3, histogram.getMax()/1E3, histogram.getCount());
+        }
+        telemetry.update();
+    }
+
+    /**
+     * Get the histogram of a phase
+     * @param phase the phase
+     * @return the histogram, in nanoseconds
+     */
+    public final LoopHistogram getHistogram(LoopPhase phase){
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Summarize every phase in one line per phase, in microseconds
+     * @return the summary
+     */
+    public final String summary(){
+        StringBuilder builder = new StringBuilder();
+        for(LoopPhase phase : LoopPhase.values()){
+            LoopHistogram histogram = histograms[phase.ordinal()];
+            builder.append(String.format("%-10s p50 %8.1f  p99 %8.1f  max %8.1f  n %d%n", phase.name().toLowerCase(),
+                    histogram.percentile(0.5)/1E3, histogram.percentile(0.99)/1E3, histogram.getMax()/1E3, histogram.getCount()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Forget every recorded duration and start timing loop periods again from the next cycle
+     */
+    public final void reset(){
+        for(LoopHistogram histogram : histograms)
+            histogram.reset();
+        Arrays.fill(cycleTimes, -1);
+        cycleStart = -1;
+    }
+}
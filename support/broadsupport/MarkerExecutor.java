@@ -0,0 +1,277 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs markers on a small pool of worker threads that are started up front and reused, instead of
+ * creating a thread per marker when it is due.
+ * Markers wait in a bounded queue when every worker is busy. When the queue is full as well, the
+ * thread submitting the marker blocks until there is room, which delays later markers instead of
+ * growing without bound. Threads that must never wait, like the control loop or a worker of this
+ * pool, which could otherwise deadlock it, use tryExecute(...) instead. Keep the pool at least as
+ * large as the amount of long running mechanism actions that overlap, so they cannot hold up
+ * shorter ones.
+ * Where the runtime supports virtual threads (Java 21 and later, not the Control Hub) they can be
+ * used for the workers instead of platform threads.
+ */
+public class MarkerExecutor {
+    /**
+     * How long shutdown() waits for interrupted markers to finish (ms)
+     */
+    private static final long SHUTDOWN_TIMEOUT = 100;
+
+    /**
+     * Pool the markers run on
+     */
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * Whether the workers are virtual threads
+     */
+    private final boolean virtual;
+
+    /**
+     * Amount of workers running a marker
+     */
+    private final AtomicInteger busy = new AtomicInteger();
+
+    /**
+     * Amount of markers that had to wait in the queue because every worker was busy
+     */
+    private final AtomicInteger saturated = new AtomicInteger();
+
+    /**
+     * Create a pool using the marker settings in Robot
+     */
+    public MarkerExecutor(){
+        this(Robot.markerThreads, Robot.markerQueueCapacity, Robot.markerVirtualThreads);
+    }
+
+    /**
+     * Create a pool for a known amount of markers: a worker per marker, up to Robot.markerThreads,
+     * and room in the queue for every marker, so submitting them never blocks
+     * @param markerCount the amount of markers that will run on the pool
+     */
+    public MarkerExecutor(int markerCount){
+        this(Math.max(1, Math.min(markerCount, Robot.markerThreads)), Math.max(1, markerCount), Robot.markerVirtualThreads);
+    }
+
+    /**
+     * Create a pool and start its workers
+     * @param threads the amount of workers
+     * @param queueCapacity the amount of markers that may wait for a worker before submitting blocks
+     * @param useVirtualThreads true to use virtual threads if the runtime supports them
+     * Precondition:  threads and queueCapacity are greater than zero
+     * Postcondition: every worker has been started
+     */
+    public MarkerExecutor(int threads, int queueCapacity, boolean useVirtualThreads){
+        if(threads < 1 || queueCapacity < 1)
+            throw new RuntimeException("threads and queueCapacity in MarkerExecutor.MarkerExecutor(...) must be greater than zero!");
+
+        ThreadFactory factory = useVirtualThreads ? virtualThreadFactory() : null;
+        virtual = factory != null;
+        if(factory == null)
+            factory = new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "marker-worker-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), factory, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                // Backpressure: wait for room in the queue rather than dropping or growing
+                if(executor.isShutdown())
+                    throw new RejectedExecutionException("The MarkerExecutor has been shut down!");
+                try{
+                    executor.getQueue().put(runnable);
+                }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting to run a marker!", e);
+                }
+            }
+        });
+        pool.prestartAllCoreThreads();
+    }
+
+    /**
+     * Get a factory for virtual threads through reflection, so this compiles and runs on runtimes without them
+     * @return the factory, or null if virtual threads are not supported
+     */
+    private static ThreadFactory virtualThreadFactory(){
+        try{
+            // The builder's own class is not public, so its methods are looked up on the public interface
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "marker-worker-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        }
+        catch(ReflectiveOperationException | RuntimeException e){
+            return null;
+        }
+    }
+
+    /**
+     * Wrap a marker to run on the pool, keeping track of the workers running one
+     * @param marker the marker to run
+     * @return the task running the marker
+     */
+    private Runnable wrap(final InsertMarker marker){
+        return new Runnable() {
+            @Override
+            public void run() {
+                busy.incrementAndGet();
+                try{
+                    marker.execute();
+                }
+                finally{
+                    busy.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    /**
+     * Whether a marker submitted now has to wait in the queue for a worker
+     * @return true if every worker is running or about to run a marker
+     */
+    private boolean allBusy(){
+        return busy.get() + pool.getQueue().size() >= pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Run a marker on the next free worker, blocking while the queue is full
+     * @param marker the marker to run
+     * @return false if the executor has been shut down or the caller was interrupted while waiting
+     */
+    public final boolean execute(final InsertMarker marker){
+        if(marker == null)
+            throw new RuntimeException("marker in MarkerExecutor.execute(...) must not be null!");
+        boolean waits = allBusy();
+        try{
+            pool.execute(wrap(marker));
+            if(waits)
+                saturated.incrementAndGet();
+            return true;
+        }
+        catch(RejectedExecutionException e){
+            return false;
+        }
+    }
+
+    /**
+     * Run a marker on the next free worker if there is room in the queue, without ever blocking.
+     * For callers that must not wait, like the control loop or a worker of this pool.
+     * @param marker the marker to run
+     * @return false if the queue is full or the executor has been shut down
+     */
+    public final boolean tryExecute(final InsertMarker marker){
+        if(marker == null)
+            throw new RuntimeException("marker in MarkerExecutor.tryExecute(...) must not be null!");
+        if(pool.isShutdown())
+            return false;
+        // Every worker is started up front, so a queued task is always picked up
+        boolean waits = allBusy();
+        if(!pool.getQueue().offer(wrap(marker)))
+            return false;
+        if(waits)
+            saturated.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Run a marker on the next free worker, waiting a bounded time for room in the queue
+     * @param marker the marker to run
+     * @param timeout the longest time to wait for room (ms)
+     * @return false if there was no room in time, the executor has been shut down or the caller was
+     *         interrupted while waiting
+     */
+    public final boolean execute(final InsertMarker marker, long timeout){
+        if(marker == null)
+            throw new RuntimeException("marker in MarkerExecutor.execute(...) must not be null!");
+        if(pool.isShutdown())
+            return false;
+        boolean waits = allBusy();
+        try{
+            if(!pool.getQueue().offer(wrap(marker), timeout, TimeUnit.MILLISECONDS))
+                return false;
+            if(waits)
+                saturated.incrementAndGet();
+            return true;
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Whether shutdown() has been called, after which no marker runs on this executor again
+     * @return true once shut down
+     */
+    public final boolean isShutdown(){
+        return pool.isShutdown();
+    }
+
+    /**
+     * Stop every marker: queued markers are dropped and running ones are interrupted.
+     * @return the amount of queued markers dropped without running
+     * Postcondition: no new markers run, and running markers have had a short time to finish
+     */
+    public final int shutdown(){
+        int dropped = pool.shutdownNow().size();
+        try{
+            pool.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        return dropped;
+    }
+
+    /**
+     * Get the amount of markers waiting for a worker
+     * @return the amount of queued markers
+     */
+    public final int getQueuedCount(){
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Get the amount of markers currently running
+     * @return the amount of busy workers
+     */
+    public final int getActiveCount(){
+        return pool.getActiveCount();
+    }
+
+    /**
+     * Get the amount of markers that had to wait in the queue because every worker was busy, for
+     * example running markers that hold a mechanism for the rest of the period
+     * @return the amount of markers that waited for a worker
+     */
+    public final int getSaturatedCount(){
+        return saturated.get();
+    }
+
+    /**
+     * Whether the workers are virtual threads
+     * @return true if virtual threads were requested and are supported
+     */
+    public final boolean isVirtual(){
+        return virtual;
+    }
+}
@@ -0,0 +1,395 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Mechanism actions that run as soon as the actions they depend on have finished, instead of at
+ * fixed times. A sequence like "raise the lift, then open the claw once it is up, while the intake
+ * spins" is written as three actions with the claw depending on the lift, so there is no need to
+ * guess how long the lift takes with a sleep inside a marker.
+ *
+ * Every action is a node of a directed acyclic graph: it waits for each action it depends on to
+ * finish (a join when there are several), and optionally for a time since start or for a gate
+ * released from elsewhere, such as a ProgressMarkerList marker placed along the path. Independent
+ * branches run at the same time on a MarkerExecutor. When an action finishes, the first dependent
+ * it makes ready runs right away on the same worker, and any others are handed to the pool.
+ * Nothing waits for room in the pool, since a worker waiting on its own pool could deadlock it:
+ * a ready node the pool has no room for is queued on the graph and run by the next worker of the
+ * graph to finish its chain of actions. If an action throws, the actions that depend on it never run.
+ */
+public class MarkerGraph {
+    /**
+     * No time condition
+     */
+    private static final double ANY_TIME = -1;
+
+    // Nodes as they are added, index i is node i
+    /**
+     * The action of each node
+     */
+    private final ArrayList<InsertMarker> actions = new ArrayList<>();
+    /**
+     * The nodes each node depends on
+     */
+    private final ArrayList<int[]> dependencies = new ArrayList<>();
+    /**
+     * The time since start each node waits for (s), ANY_TIME for none
+     */
+    private final ArrayList<Double> times = new ArrayList<>();
+    /**
+     * Whether each node waits for release(...)
+     */
+    private final ArrayList<Boolean> gated = new ArrayList<>();
+
+    // Built by start()
+    /**
+     * The nodes that depend on each node
+     */
+    private int[][] dependents;
+    /**
+     * Amount of conditions each node still waits for, null until started
+     */
+    private volatile AtomicIntegerArray remaining;
+    /**
+     * Whether the gate or time condition of each node has been met, 1 once it has
+     */
+    private AtomicIntegerArray released;
+    /**
+     * Counts down once per node that has run, failed or been skipped
+     */
+    private volatile CountDownLatch finished;
+
+    /**
+     * Ready nodes the pool had no room for, run by workers of the graph as they free up
+     */
+    private final ConcurrentLinkedQueue<Integer> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Pool the actions run on
+     */
+    private final MarkerExecutor executor;
+
+    /**
+     * Releases the nodes waiting for a time, null if none do
+     */
+    private RunnableCollective timer;
+
+    /**
+     * Whether start() has been called
+     */
+    private boolean started = false;
+
+    /**
+     * Signals that no more actions should start
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * First exception thrown by an action, null if none has
+     */
+    private volatile RuntimeException failure = null;
+
+    /**
+     * Create an empty graph running its actions on a pool using the marker settings in Robot
+     */
+    public MarkerGraph(){
+        this(new MarkerExecutor());
+    }
+
+    /**
+     * Create an empty graph running its actions on the given pool
+     * @param executor the pool to run the actions on, shut down by stop()
+     * Precondition:  executor is not null
+     */
+    public MarkerGraph(MarkerExecutor executor){
+        if(executor == null)
+            throw new RuntimeException("executor in MarkerGraph.MarkerGraph(...) must not be null!");
+        this.executor = executor;
+    }
+
+    /**
+     * Add an action that runs once every action it depends on has finished, right at start if none
+     * @param action the action to run
+     * @param after the nodes that must finish first
+     * @return the node of the action, to depend on or release
+     */
+    public final int add(InsertMarker action, int... after){
+        return addNode(action, ANY_TIME, false, after);
+    }
+
+    /**
+     * Add an action that runs once every action it depends on has finished and a time has passed
+     * @param time the time since start() to wait for (s)
+     * @param action the action to run
+     * @param after the nodes that must finish first
+     * @return the node of the action, to depend on or release
+     */
+    public final int addAt(double time, InsertMarker action, int... after){
+        if(!(time >= 0))
+            throw new RuntimeException("time in MarkerGraph.addAt(...) must not be negative!");
+        return addNode(action, time, false, after);
+    }
+
+    /**
+     * Add an action that runs once every action it depends on has finished and the InsertMarker
+     * from release(...) has been executed, for example by a ProgressMarkerList along the path
+     * @param action the action to run
+     * @param after the nodes that must finish first
+     * @return the node of the action, to depend on or release
+     */
+    public final int addGated(InsertMarker action, int... after){
+        return addNode(action, ANY_TIME, true, after);
+    }
+
+    /**
+     * Add a node
+     * @param action the action to run
+     * @param time the time since start to wait for (s), ANY_TIME for none
+     * @param gate whether the node waits for release(...)
+     * @param after the nodes that must finish first
+     * @return the index of the node
+     * Precondition:  action is not null, every node in after has already been added and the graph
+     *                has not been started
+     */
+    private synchronized int addNode(InsertMarker action, double time, boolean gate, int[] after){
+        if(action == null)
+            throw new RuntimeException("action in MarkerGraph.add(...) must not be null!");
+        if(started)
+            throw new RuntimeException("Actions cannot be added to a MarkerGraph after MarkerGraph.start()!");
+        int node = actions.size();
+        if(after == null)
+            after = new int[0];
+        // Only depending on earlier nodes keeps the graph free of cycles
+        for(int dependency : after)
+            if(dependency < 0 || dependency >= node)
+                throw new RuntimeException("Dependencies in MarkerGraph.add(...) must be nodes that were already added!");
+
+        actions.add(action);
+        dependencies.add(after.clone());
+        times.add(time);
+        gated.add(gate);
+        return node;
+    }
+
+    /**
+     * Get a marker that releases a gated node when executed. Releasing more than once, or before
+     * start(), has no further effect.
+     * @param node the node added with addGated(...)
+     * @return the marker releasing the node
+     */
+    public final synchronized InsertMarker release(final int node){
+        if(node < 0 || node >= actions.size() || !gated.get(node))
+            throw new RuntimeException("node in MarkerGraph.release(...) must be a node added with addGated(...)!");
+        return new InsertMarker() {
+            @Override
+            public void execute() {
+                open(node);
+            }
+        };
+    }
+
+    /**
+     * Start running the graph: actions with nothing to wait for run right away.
+     * Precondition:  the graph has not been started before
+     * Postcondition: every action runs as soon as its conditions are met, until stop() is called
+     */
+    public final synchronized void start(){
+        if(started)
+            throw new RuntimeException("MarkerGraph.start() can only be called once!");
+        started = true;
+
+        int nodes = actions.size();
+        finished = new CountDownLatch(nodes);
+        released = new AtomicIntegerArray(nodes);
+
+        // Invert the dependencies so a finishing node finds its dependents directly
+        int[] dependentCount = new int[nodes];
+        for(int i=0;i<nodes;i++)
+            for(int dependency : dependencies.get(i))
+                dependentCount[dependency]++;
+        dependents = new int[nodes][];
+        for(int i=0;i<nodes;i++)
+            dependents[i] = new int[dependentCount[i]];
+        int[] filled = new int[nodes];
+        for(int i=0;i<nodes;i++)
+            for(int dependency : dependencies.get(i))
+                dependents[dependency][filled[dependency]++] = i;
+
+        AtomicIntegerArray counts = new AtomicIntegerArray(nodes);
+        MarkerList.Builder timed = null;
+        for(int i=0;i<nodes;i++){
+            boolean waitsForTime = times.get(i) != ANY_TIME;
+            counts.set(i, dependencies.get(i).length + (gated.get(i) || waitsForTime ? 1 : 0));
+            if(waitsForTime){
+                if(timed == null)
+                    timed = MarkerList.builder();
+                final int node = i;
+                timed.add(times.get(i), new InsertMarker() {
+                    @Override
+                    public void execute() {
+                        open(node);
+                    }
+                });
+            }
+        }
+
+        // Published last, gates released before this point are ignored
+        remaining = counts;
+
+        // Nodes waiting for a time are released by one sleeping scheduler on the same pool
+        if(timed != null){
+            timer = new RunnableCollective(timed.build(), executor);
+            timer.activateMarkers();
+        }
+
+        // Roots are picked from what they wait for, not from remaining, which a root that has
+        // already run may have brought to zero for one of its dependents
+        for(int i=0;i<nodes;i++)
+            if(dependencies.get(i).length == 0 && !gated.get(i) && times.get(i) == ANY_TIME)
+                submit(i);
+    }
+
+    /**
+     * Meet the gate or time condition of a node, handing it to the pool if it is now ready so the
+     * releasing thread, which may be a control loop, never runs the action itself
+     * @param node the node to release
+     */
+    private void open(int node){
+        if(remaining == null || !released.compareAndSet(node, 0, 1))
+            return;
+        if(remaining.decrementAndGet(node) == 0)
+            submit(node);
+    }
+
+    /**
+     * Hand a ready node to the pool without blocking, or queue it on the graph if the pool has no room
+     * @param node the node to run
+     */
+    private void submit(final int node){
+        if(stopped){
+            skip(node);
+            return;
+        }
+        if(executor.tryExecute(new InsertMarker() {
+            @Override
+            public void execute() {
+                run(node);
+            }
+        }))
+            return;
+        if(executor.isShutdown())
+            skip(node);
+        else
+            // The pool is full of work, so a worker of the graph frees up and takes it
+            waiting.add(node);
+    }
+
+    /**
+     * Run a ready node and then every dependent it makes ready, continuing on this thread with the
+     * first of them and handing the rest to the pool. Once the chain ends, carries on with the nodes
+     * the pool had no room for.
+     * @param node the node to run
+     */
+    private void run(int node){
+        while(node >= 0){
+            int next = -1;
+            if(stopped)
+                skip(node);
+            else{
+                boolean succeeded = true;
+                try{
+                    actions.get(node).execute();
+                }
+                catch(RuntimeException e){
+                    if(failure == null)
+                        failure = e;
+                    succeeded = false;
+                }
+
+                if(!succeeded)
+                    skip(node);
+                else{
+                    finished.countDown();
+                    for(int dependent : dependents[node])
+                        if(remaining.decrementAndGet(dependent) == 0){
+                            if(next < 0)
+                                next = dependent;
+                            else
+                                submit(dependent);
+                        }
+                }
+            }
+
+            if(next < 0){
+                Integer queued = waiting.poll();
+                if(queued != null)
+                    next = queued;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Count a node and everything depending on it as finished without running them
+     * @param node the node to skip
+     */
+    private void skip(int node){
+        finished.countDown();
+        skipDependents(node);
+    }
+
+    /**
+     * Count everything depending on a node that did not finish as finished without running it
+     * @param node the node that did not finish
+     */
+    private void skipDependents(int node){
+        // A dependent is skipped by the first dependency that fails, so it is only counted once
+        for(int dependent : dependents[node])
+            if(remaining.getAndSet(dependent, -1) > 0)
+                skip(dependent);
+    }
+
+    /**
+     * Wait for every action to have run or been skipped
+     * @param timeout the longest time to wait (ms)
+     * @return true if every action has finished
+     * Precondition:  the graph has been started
+     */
+    public final boolean awaitCompletion(long timeout) throws InterruptedException {
+        if(finished == null)
+            throw new RuntimeException("MarkerGraph.awaitCompletion(...) must be called after MarkerGraph.start()!");
+        return finished.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether every action has run or been skipped
+     * @return true once the graph is complete
+     */
+    public final boolean isComplete(){
+        return finished != null && finished.getCount() == 0;
+    }
+
+    /**
+     * Get the first exception thrown by an action
+     * @return the exception, or null if every action that ran succeeded
+     */
+    public final RuntimeException getFailure(){
+        return failure;
+    }
+
+    /**
+     * Stop the graph: actions that have not started never run and running ones are interrupted.
+     * Postcondition: no more actions start
+     */
+    public final synchronized void stop(){
+        stopped = true;
+        if(timer != null)
+            timer.setStopMarkers();
+        else
+            executor.shutdown();
+    }
+}
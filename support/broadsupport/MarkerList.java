@@ -1,8 +1,12 @@
 package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * Supporting file to create a static array of markers.
+ * Any amount of markers can be added through MarkerList.builder(), and a Cursor hands them out in
+ * the order they are due, so dispatching only ever looks at the next marker.
  * @author Tiernan Lindauer
  * For team 7797 Victorian Voltage.
  */
@@ -16,9 +20,19 @@ public class MarkerList {
      */
     private double[] times;
 
+    /**
+     * Markers at or after this time (s) never run, as used for unused slots
+     */
+    public static final double NEVER = Long.MAX_VALUE/1E9;
+
+    /**
+     * Index of every marker that will run, sorted by time, null until a cursor is first created
+     */
+    private int[] order;
+
     /**
      * All of these methods are just meant to nicely create a static array of the InsertMarker implementation.
-     * If more than four markers are passed then you must first create them as separate static arrays
+     * If more than four markers are passed then use MarkerList.builder() or create them as separate static arrays
      * @param m the marker (listed m, m2, m3, etc.)
      * @param time1 the corresponding time to the first marker
      */
@@ -133,4 +147,163 @@ public class MarkerList {
         return times[i];
     }
 
+    /**
+     * Start building a list of any amount of markers
+     * @return an empty builder
+     */
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    /**
+     * Create a cursor handing out the markers in the order they are due, skipping unused slots.
+     * The markers are sorted the first time a cursor is created, later cursors reuse the order.
+     * @return a cursor at the first marker due
+     * Precondition:  markers and times have been set
+     */
+    public final synchronized Cursor cursor(){
+        if(markers == null || times == null)
+            throw new RuntimeException("Cannot run MarkerList.cursor() while markers or times is null!");
+        if(order == null){
+            int count = 0;
+            Integer[] due = new Integer[times.length];
+            for(int i=0;i<times.length;i++)
+                if(times[i] < NEVER)
+                    due[count++] = i;
+            due = Arrays.copyOf(due, count);
+            // Stable, so markers at the same time keep the order they were added in
+            Arrays.sort(due, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(times[a], times[b]);
+                }
+            });
+            order = new int[count];
+            for(int i=0;i<count;i++)
+                order[i] = due[i];
+        }
+        return new Cursor(order);
+    }
+
+    /**
+     * Fluent builder for a MarkerList of any size.
+     */
+    public static class Builder {
+        /**
+         * Markers added so far
+         */
+        private final ArrayList<InsertMarker> markers = new ArrayList<>();
+        /**
+         * Times of the markers added so far
+         */
+        private final ArrayList<Double> times = new ArrayList<>();
+
+        /**
+         * Add a marker
+         * @param time the time since the start of auto to execute the marker at (s)
+         * @param marker the marker to execute
+         * @return this builder, to chain adds
+         * Precondition:  marker is not null and time is not negative
+         */
+        public final Builder add(double time, InsertMarker marker){
+            if(marker == null)
+                throw new RuntimeException("marker in MarkerList.Builder.add(...) must not be null!");
+            if(!(time >= 0))
+                throw new RuntimeException("time in MarkerList.Builder.add(...) must not be negative!");
+            markers.add(marker);
+            times.add(time);
+            return this;
+        }
+
+        /**
+         * Create the list, already sorted by time
+         * @return the MarkerList holding every marker added
+         * Precondition:  at least one marker has been added
+         */
+        public final MarkerList build(){
+            if(markers.isEmpty())
+                throw new RuntimeException("At least one marker must be added before MarkerList.Builder.build()!");
+
+            int size = markers.size();
+            InsertMarker[] markerArray = new InsertMarker[size];
+            double[] timeArray = new double[size];
+            for(int i=0;i<size;i++){
+                markerArray[i] = markers.get(i);
+                timeArray[i] = times.get(i);
+            }
+            MarkerList list = new MarkerList(markerArray, timeArray);
+            // Sort once here so the first cursor is made without any work
+            list.cursor();
+            return list;
+        }
+    }
+
+    /**
+     * Hands out the markers of a MarkerList in the order they are due. Each call only looks at the
+     * next marker, so dispatching every marker costs O(1) per marker no matter how many there are.
+     * A cursor is used by a single thread.
+     */
+    public final class Cursor {
+        /**
+         * Index of every marker that will run, sorted by time
+         */
+        private final int[] order;
+        /**
+         * Position in order of the next marker
+         */
+        private int position = 0;
+
+        /**
+         * Create a cursor at the first marker due
+         * @param order the index of every marker that will run, sorted by time
+         */
+        private Cursor(int[] order){
+            this.order = order;
+        }
+
+        /**
+         * Whether there are markers left
+         * @return true if a marker has not been handed out yet
+         */
+        public boolean hasNext(){
+            return position < order.length;
+        }
+
+        /**
+         * Get the time the next marker is due at without moving the cursor
+         * @return the time (s), or NEVER if there are no markers left
+         */
+        public double peekTime(){
+            return position < order.length ? times[order[position]] : NEVER;
+        }
+
+        /**
+         * Hand out the next marker regardless of its time
+         * @return the next marker
+         * Precondition:  hasNext() is true
+         */
+        public InsertMarker next(){
+            if(position >= order.length)
+                throw new RuntimeException("No markers are left in MarkerList.Cursor.next()!");
+            return markers[order[position++]];
+        }
+
+        /**
+         * Hand out the next marker if it is due
+         * @param time the time since the start of auto (s)
+         * @return the next marker if it is due at or before time, otherwise null
+         */
+        public InsertMarker poll(double time){
+            if(position < order.length && times[order[position]] <= time)
+                return markers[order[position++]];
+            return null;
+        }
+
+        /**
+         * Move back to the first marker
+         */
+        public void reset(){
+            position = 0;
+        }
+    }
 }
@@ -0,0 +1,404 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.util.Arrays;
+
+/**
+ * A linear Kalman Filter for n states, for fusing several sensors into one estimate, for example a
+ * pose x, y, heading and its velocities from the wheel encoders and the IMU.
+ * Matrices are flat row-major double arrays: element (i, j) of an r x c matrix is at i*c + j.
+ * Each sensor is fused with its own call to correct(...), which takes the measurement matrix and
+ * noise for that sensor, so sensors that update at different rates can share one filter.
+ * Every buffer is allocated at construction and predict(...) and correct(...) do not allocate.
+ * Unlike KalmanFilter, the process and measurement noise are named for what they are.
+ */
+public class MatrixKalmanFilter {
+    /**
+     * Variance given to states the first measurement does not observe, large enough to mean unknown
+     */
+    private static final double UNKNOWN_VARIANCE = 1E6;
+
+    /**
+     * Amount of states
+     */
+    private final int states;
+    /**
+     * Amount of control inputs
+     */
+    private final int controls;
+    /**
+     * Largest amount of measurements one call to correct(...) may fuse
+     */
+    private final int maxMeasurements;
+
+    /**
+     * State estimate (n)
+     */
+    private final double[] x;
+    /**
+     * Covariance of the state estimate (n x n)
+     */
+    private final double[] covariance;
+    /**
+     * State transition matrix (n x n)
+     */
+    private final double[] transition;
+    /**
+     * Control matrix (n x controls)
+     */
+    private final double[] control;
+    /**
+     * Process noise covariance (n x n)
+     */
+    private final double[] processNoise;
+
+    // Preallocated scratch space
+    /**
+     * Predicted state (n)
+     */
+    private final double[] scratchState;
+    /**
+     * Transition times covariance (n x n)
+     */
+    private final double[] scratchSquare;
+    /**
+     * Covariance times the transposed measurement matrix (n x m)
+     */
+    private final double[] covarianceH;
+    /**
+     * Innovation covariance, then its Cholesky factor (m x m)
+     */
+    private final double[] innovationCovariance;
+    /**
+     * Kalman gain (n x m)
+     */
+    private final double[] gain;
+    /**
+     * Measurement residual (m)
+     */
+    private final double[] innovation;
+
+    /**
+     * Whether the state has been set or corrected since construction or the last reset
+     */
+    private boolean initialized;
+
+    /**
+     * Create a filter with an identity transition, no control inputs and no process noise.
+     * @param states the amount of states
+     * @param controls the amount of control inputs
+     * @param maxMeasurements the largest amount of measurements fused by one correct(...)
+     * Precondition:  states and maxMeasurements are greater than zero and controls is not negative
+     */
+    public MatrixKalmanFilter(int states, int controls, int maxMeasurements){
+        if(states < 1 || maxMeasurements < 1 || controls < 0)
+            throw new RuntimeException("states and maxMeasurements must be greater than zero and controls must not be negative in MatrixKalmanFilter.MatrixKalmanFilter(...)!");
+
+        this.states = states;
+        this.controls = controls;
+        this.maxMeasurements = maxMeasurements;
+
+        x = new double[states];
+        covariance = new double[states*states];
+        transition = new double[states*states];
+        control = new double[states*controls];
+        processNoise = new double[states*states];
+        for(int i=0;i<states;i++)
+            transition[i*states+i] = 1;
+
+        scratchState = new double[states];
+        scratchSquare = new double[states*states];
+        covarianceH = new double[states*maxMeasurements];
+        innovationCovariance = new double[maxMeasurements*maxMeasurements];
+        gain = new double[states*maxMeasurements];
+        innovation = new double[maxMeasurements];
+    }
+
+    /**
+     * Set the state transition matrix
+     * @param transition the n x n matrix, copied into the filter
+     */
+    public final void setTransition(double[] transition){
+        copy(transition, this.transition, "setTransition");
+    }
+
+    /**
+     * Set the control matrix
+     * @param control the n x controls matrix, copied into the filter
+     */
+    public final void setControl(double[] control){
+        copy(control, this.control, "setControl");
+    }
+
+    /**
+     * Set the process noise covariance
+     * @param processNoise the n x n matrix, copied into the filter
+     */
+    public final void setProcessNoise(double[] processNoise){
+        copy(processNoise, this.processNoise, "setProcessNoise");
+    }
+
+    /**
+     * Set the state estimate and its covariance, for example to the starting pose
+     * @param state the n states, copied into the filter
+     * @param covariance the n x n covariance, copied into the filter
+     * Postcondition: the filter is initialized
+     */
+    public final void setState(double[] state, double[] covariance){
+        copy(state, this.x, "setState");
+        copy(covariance, this.covariance, "setState");
+        initialized = true;
+    }
+
+    /**
+     * Forget the estimate, keeping the model. Unless setState(...) is called again the estimate
+     * restarts from the next measurement.
+     * Postcondition: the filter behaves as if it had just been constructed
+     */
+    public final void reset(){
+        Arrays.fill(x, 0);
+        Arrays.fill(covariance, 0);
+        initialized = false;
+    }
+
+    /**
+     * Predict the state one step ahead without a control input
+     * Postcondition: x = Ax and P = APA' + process noise
+     */
+    public final void predict(){
+        predict(null);
+    }
+
+    /**
+     * Predict the state one step ahead
+     * @param u the control inputs, or null for none
+     * Postcondition: x = Ax + Bu and P = APA' + process noise
+     */
+    public final void predict(double[] u){
+        if(u != null && u.length != controls)
+            throw new RuntimeException("u in MatrixKalmanFilter.predict(...) must have one value per control input!");
+        int n = states;
+
+        // x = Ax + Bu
+        for(int i=0;i<n;i++){
+            double sum = 0;
+            for(int j=0;j<n;j++)
+                sum += transition[i*n+j]*x[j];
+            if(u != null)
+                for(int j=0;j<controls;j++)
+                    sum += control[i*controls+j]*u[j];
+            scratchState[i] = sum;
+        }
+        System.arraycopy(scratchState, 0, x, 0, n);
+
+        // P = A P A' + process noise
+        for(int i=0;i<n;i++)
+            for(int j=0;j<n;j++){
+                double sum = 0;
+                for(int k=0;k<n;k++)
+                    sum += transition[i*n+k]*covariance[k*n+j];
+                scratchSquare[i*n+j] = sum;
+            }
+        for(int i=0;i<n;i++)
+            for(int j=i;j<n;j++){
+                double sum = processNoise[i*n+j];
+                for(int k=0;k<n;k++)
+                    sum += scratchSquare[i*n+k]*transition[j*n+k];
+                covariance[i*n+j] = sum;
+                covariance[j*n+i] = sum;
+            }
+    }
+
+    /**
+     * Fuse a measurement z = Hx + noise into the estimate.
+     * @param z the m measured values
+     * @param h the m x n measurement matrix
+     * @param measurementNoise the m x m measurement noise covariance
+     * @param m the amount of measurements
+     * Precondition:  m is between 1 and maxMeasurements and the arrays hold at least that many values
+     * Postcondition: the estimate and covariance have been corrected by the measurement
+     */
+    public final void correct(double[] z, double[] h, double[] measurementNoise, int m){
+        if(m < 1 || m > maxMeasurements)
+            throw new RuntimeException("m in MatrixKalmanFilter.correct(...) must be between 1 and the maximum amount of measurements!");
+        if(z.length < m || h.length < m*states || measurementNoise.length < m*m)
+            throw new RuntimeException("z, h and measurementNoise in MatrixKalmanFilter.correct(...) are too small for m measurements!");
+        int n = states;
+
+        if(!initialized){
+            initialize(z, h, measurementNoise, m);
+            return;
+        }
+
+        // PH' (n x m)
+        for(int i=0;i<n;i++)
+            for(int j=0;j<m;j++){
+                double sum = 0;
+                for(int k=0;k<n;k++)
+                    sum += covariance[i*n+k]*h[j*n+k];
+                covarianceH[i*m+j] = sum;
+            }
+
+        // S = H PH' + noise (m x m), and the residual y = z - Hx
+        for(int i=0;i<m;i++){
+            for(int j=0;j<m;j++){
+                double sum = measurementNoise[i*m+j];
+                for(int k=0;k<n;k++)
+                    sum += h[i*n+k]*covarianceH[k*m+j];
+                innovationCovariance[i*m+j] = sum;
+            }
+            double predicted = 0;
+            for(int k=0;k<n;k++)
+                predicted += h[i*n+k]*x[k];
+            innovation[i] = z[i] - predicted;
+        }
+
+        // K = PH' S^-1, one row at a time since S is symmetric
+        choleskyDecompose(innovationCovariance, m);
+        for(int i=0;i<n;i++){
+            for(int j=0;j<m;j++)
+                gain[i*m+j] = covarianceH[i*m+j];
+            choleskySolve(innovationCovariance, m, gain, i*m);
+        }
+
+        // x = x + Ky
+        for(int i=0;i<n;i++){
+            double sum = 0;
+            for(int j=0;j<m;j++)
+                sum += gain[i*m+j]*innovation[j];
+            x[i] += sum;
+        }
+
+        // P = P - K HP, where HP = (PH')' since P is symmetric; kept exactly symmetric
+        for(int i=0;i<n;i++)
+            for(int j=i;j<n;j++){
+                double sum = 0;
+                for(int k=0;k<m;k++)
+                    sum += gain[i*m+k]*covarianceH[j*m+k];
+                double value = covariance[i*n+j] - sum;
+                covariance[i*n+j] = value;
+                covariance[j*n+i] = value;
+            }
+    }
+
+    /**
+     * Start the estimate from the first measurement: observed states take the measured values
+     * and noise, the rest start at zero with a variance large enough to mean unknown.
+     * Only direct measurements (one non-zero value per row of H) are supported.
+     * @param z the m measured values
+     * @param h the m x n measurement matrix
+     * @param measurementNoise the m x m measurement noise covariance
+     * @param m the amount of measurements
+     */
+    private void initialize(double[] z, double[] h, double[] measurementNoise, int m){
+        int n = states;
+        for(int i=0;i<n;i++)
+            covariance[i*n+i] = UNKNOWN_VARIANCE;
+        for(int i=0;i<m;i++){
+            int observed = -1;
+            for(int k=0;k<n;k++)
+                if(h[i*n+k] != 0){
+                    if(observed != -1)
+                        throw new RuntimeException("The first measurement in MatrixKalmanFilter.correct(...) must observe states directly, call setState(...) first!");
+                    observed = k;
+                }
+            if(observed == -1)
+                continue;
+            x[observed] = z[i]/h[i*n+observed];
+            covariance[observed*n+observed] = measurementNoise[i*m+i]/(h[i*n+observed]*h[i*n+observed]);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Replace the lower triangle of a symmetric positive definite matrix with its Cholesky factor L
+     * @param a the m x m matrix
+     * @param m the size of the matrix
+     */
+    private static void choleskyDecompose(double[] a, int m){
+        for(int j=0;j<m;j++){
+            double diagonal = a[j*m+j];
+            for(int k=0;k<j;k++)
+                diagonal -= a[j*m+k]*a[j*m+k];
+            if(diagonal <= 0)
+                throw new RuntimeException("The innovation covariance in MatrixKalmanFilter.correct(...) must be positive definite, check the measurement noise!");
+            diagonal = Math.sqrt(diagonal);
+            a[j*m+j] = diagonal;
+
+            for(int i=j+1;i<m;i++){
+                double sum = a[i*m+j];
+                for(int k=0;k<j;k++)
+                    sum -= a[i*m+k]*a[j*m+k];
+                a[i*m+j] = sum/diagonal;
+            }
+        }
+    }
+
+    /**
+     * Solve LL'v = b in place
+     * @param l the Cholesky factor from choleskyDecompose(...)
+     * @param m the size of the matrix
+     * @param b the array holding b, overwritten with v
+     * @param offset the index of the first element of b
+     */
+    private static void choleskySolve(double[] l, int m, double[] b, int offset){
+        for(int i=0;i<m;i++){
+            double sum = b[offset+i];
+            for(int k=0;k<i;k++)
+                sum -= l[i*m+k]*b[offset+k];
+            b[offset+i] = sum/l[i*m+i];
+        }
+        for(int i=m-1;i>=0;i--){
+            double sum = b[offset+i];
+            for(int k=i+1;k<m;k++)
+                sum -= l[k*m+i]*b[offset+k];
+            b[offset+i] = sum/l[i*m+i];
+        }
+    }
+
+    /**
+     * Copy a matrix into one of the filter's buffers
+     * @param from the matrix to copy
+     * @param to the buffer
+     * @param method the public method copying, for the error message
+     */
+    private static void copy(double[] from, double[] to, String method){
+        if(from == null || from.length != to.length)
+            throw new RuntimeException("The matrix in MatrixKalmanFilter."+method+"(...) must have "+to.length+" values!");
+        System.arraycopy(from, 0, to, 0, to.length);
+    }
+
+    /**
+     * Get one state of the estimate
+     * @param i the index of the state
+     * @return the estimated state
+     */
+    public final double getState(int i){
+        return x[i];
+    }
+
+    /**
+     * Copy the estimate into an array
+     * @param out the array to write the n states to
+     */
+    public final void getState(double[] out){
+        System.arraycopy(x, 0, out, 0, states);
+    }
+
+    /**
+     * Get one element of the covariance of the estimate
+     * @param i the row
+     * @param j the column
+     * @return the covariance between states i and j
+     */
+    public final double getCovariance(int i, int j){
+        return covariance[i*states+j];
+    }
+
+    /**
+     * Get the amount of states
+     * @return the amount of states
+     */
+    public final int getStateCount(){
+        return states;
+    }
+}
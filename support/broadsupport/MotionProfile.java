@@ -0,0 +1,144 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Minimum-time, rest-to-rest velocity profile over a distance given a maximum velocity,
+ * acceleration and jerk. An infinite jerk gives a trapezoidal profile, a finite one an S-curve.
+ * The profile is symmetric: the deceleration phase mirrors the acceleration phase.
+ */
+public class MotionProfile {
+    /**
+     * Highest velocity actually reached, lower than the maximum on short distances
+     */
+    private final double peakVelocity;
+    /**
+     * Highest acceleration actually reached
+     */
+    private final double peakAcceleration;
+    /**
+     * Maximum jerk
+     */
+    private final double jerk;
+    /**
+     * Duration of each jerk ramp in the acceleration phase
+     */
+    private final double jerkTime;
+    /**
+     * Duration of the whole acceleration phase (jerk ramps and constant acceleration)
+     */
+    private final double accelerationTime;
+    /**
+     * Duration of the constant velocity phase
+     */
+    private final double cruiseTime;
+
+    /**
+     * Compute the profile.
+     * @param distance the distance to travel, must not be negative
+     * @param maxVelocity the maximum velocity
+     * @param maxAcceleration the maximum acceleration
+     * @param maxJerk the maximum jerk, Double.POSITIVE_INFINITY for a trapezoidal profile
+     * Precondition:  every limit is greater than zero
+     * Postcondition: the profile covers the distance in the minimum time the limits allow
+     */
+    public MotionProfile(double distance, double maxVelocity, double maxAcceleration, double maxJerk){
+        if(distance < 0 || maxVelocity <= 0 || maxAcceleration <= 0 || maxJerk <= 0)
+            throw new RuntimeException("The distance must not be negative and the limits must be greater than zero in MotionProfile.MotionProfile(...)!");
+
+        jerk = maxJerk;
+        boolean trapezoidal = Double.isInfinite(maxJerk);
+
+        // Velocity gained while the jerk ramps the acceleration up and back down
+        double rampVelocity = trapezoidal ? 0 : maxAcceleration*maxAcceleration/maxJerk;
+
+        double velocity = maxVelocity;
+        double rampAcceleration = accelerationPhaseTime(velocity, maxAcceleration, rampVelocity);
+        if(velocity*rampAcceleration > distance){
+            // The maximum velocity cannot be reached, solve velocity*accelerationPhaseTime(velocity) = distance
+            velocity = (-rampVelocity + Math.sqrt(rampVelocity*rampVelocity + 4*distance*maxAcceleration))/2;
+            if(velocity < rampVelocity)
+                velocity = Math.pow(distance*Math.sqrt(maxJerk)/2, 2.0/3.0);
+            rampAcceleration = accelerationPhaseTime(velocity, maxAcceleration, rampVelocity);
+        }
+
+        peakVelocity = velocity;
+        accelerationTime = rampAcceleration;
+        cruiseTime = peakVelocity > 0 ? Math.max(0, (distance - peakVelocity*accelerationTime)/peakVelocity) : 0;
+
+        if(trapezoidal){
+            jerkTime = 0;
+            peakAcceleration = maxAcceleration;
+        }
+        else if(peakVelocity < rampVelocity){
+            // The acceleration never reaches its maximum
+            jerkTime = Math.sqrt(peakVelocity/maxJerk);
+            peakAcceleration = maxJerk*jerkTime;
+        }
+        else{
+            jerkTime = maxAcceleration/maxJerk;
+            peakAcceleration = maxAcceleration;
+        }
+    }
+
+    /**
+     * Time to accelerate from rest to a velocity
+     * @param velocity the velocity to reach
+     * @param maxAcceleration the maximum acceleration
+     * @param rampVelocity the velocity gained by ramping the acceleration up to its maximum and back
+     * @return the duration of the acceleration phase
+     */
+    private static double accelerationPhaseTime(double velocity, double maxAcceleration, double rampVelocity){
+        if(velocity >= rampVelocity)
+            return velocity/maxAcceleration + rampVelocity/maxAcceleration;
+        return 2*Math.sqrt(velocity*rampVelocity)/maxAcceleration;
+    }
+
+    /**
+     * Get the velocity while accelerating
+     * @param t the time since the start of the acceleration phase
+     * @return the velocity
+     */
+    private double accelerate(double t){
+        if(t <= 0)
+            return 0;
+        if(t < jerkTime)
+            return jerk*t*t/2;
+        if(t < accelerationTime-jerkTime)
+            return peakAcceleration*(t - jerkTime/2);
+        if(t < accelerationTime){
+            double remaining = accelerationTime-t;
+            return peakVelocity - (jerkTime > 0 ? jerk*remaining*remaining/2 : 0);
+        }
+        return peakVelocity;
+    }
+
+    /**
+     * Get the velocity along the profile
+     * @param t the time since the start of the profile
+     * @return the velocity, zero outside of the profile
+     */
+    public final double getVelocity(double t){
+        if(t <= 0 || t >= getTotalTime())
+            return 0;
+        if(t < accelerationTime)
+            return accelerate(t);
+        if(t < accelerationTime + cruiseTime)
+            return peakVelocity;
+        return accelerate(getTotalTime()-t);
+    }
+
+    /**
+     * Get the time it takes to complete the profile
+     * @return the total time
+     */
+    public final double getTotalTime(){
+        return 2*accelerationTime + cruiseTime;
+    }
+
+    /**
+     * Get the highest velocity the profile reaches
+     * @return the peak velocity
+     */
+    public final double getPeakVelocity(){
+        return peakVelocity;
+    }
+}
@@ -1,7 +1,5 @@
 package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 
-import java.util.ArrayList;
-
 /**
  * A PID control loop for general purpose,
  * created by
@@ -28,15 +26,31 @@ public class PIDController {
      */
     private int forgetLength;
 
-    // ArrayLists to store the timing data
+    // Ring buffers holding the last forgetLength measurements, slot head is written next
     /**
      * Error data to store
      */
-    private ArrayList<Long> data;
+    private long[] data;
     /**
      * Time data to correspond to each error measurement
      */
-    private ArrayList<Long> time;
+    private long[] time;
+    /**
+     * Integral term between each measurement and the one before it
+     */
+    private long[] area;
+    /**
+     * Index of the slot the next measurement is written to
+     */
+    private int head;
+    /**
+     * Amount of measurements taken since construction or the last reset
+     */
+    private long count;
+    /**
+     * Sum of every integral term inside the window
+     */
+    private long integralSum;
 
      /**
      * Default constructor - assigns moderate values to the PID.
@@ -45,9 +59,8 @@ public class PIDController {
         proportional = Robot.kP;
         integral = Robot.kI;
         derivative = Robot.kD;
-        data = new ArrayList<>();
-        time = new ArrayList<>();
         forgetLength = 64;
+        allocate();
     }
 
     /**
@@ -60,9 +73,8 @@ public class PIDController {
         proportional = Kp;
         integral = Ki;
         derivative = Kd;
-        data = new ArrayList<>();
-        time = new ArrayList<>();
         forgetLength = 64;
+        allocate();
     }
     /**
      * Construct PID controller with forget length
@@ -76,26 +88,70 @@ public class PIDController {
         integral = Ki*1000;
         derivative = Kd;
         forgetLength = len;
-        data = new ArrayList<>();
-        time = new ArrayList<>();
-        forgetLength = len;
+        allocate();
+    }
+
+    /**
+     * Allocate the ring buffers once, every update afterwards reuses them.
+     * Precondition:  forgetLength has been assigned
+     */
+    private void allocate(){
+        if(forgetLength < 1)
+            throw new RuntimeException("The forget length in PIDController.PIDController(...) must be at least 1!");
+        data = new long[forgetLength];
+        time = new long[forgetLength];
+        area = new long[forgetLength];
+        reset();
+    }
+
+    /**
+     * Forget all error history so the controller can be reused, keeping its gains.
+     * Postcondition: the controller behaves as if it had just been constructed
+     */
+    public final void reset(){
+        head = 0;
+        count = 0;
+        integralSum = 0;
     }
 
     /**
      * A private method to compute the integral term.
-     * @return a right Riemann sum of the error so far.
+     * @return a right Riemann sum of the error over the last forgetLength measurements.
      * Precondition:  time and data have been instantiated
      * Postcondition: the accurate integration has been performed and returned.
      */
     private long getIntegral(){
         if(time == null || data == null)
             throw new RuntimeException("time and data in PIDController.getIntegral() must not be equal to null!");
-        long sum = 0;
-        if(time.size() > 2){
-            for(int i=0;i<time.size()-1;i++)
-                sum += ((time.get(i + 1) - time.get(i))/160.0 * ((data.get(i + 1) + data.get(i)) / 2.0));
+        return integralSum;
+    }
+
+    /**
+     * Store a measurement in the ring buffers, keeping the windowed integral up to date.
+     * Runs in constant time and does not allocate.
+     * @param now the time of the measurement (ms)
+     * @param error the error of the measurement
+     */
+    private void record(long now, long error){
+        // Once full, slot head holds the oldest measurement: drop the term pairing it with the next one
+        if(count >= forgetLength){
+            int next = (head+1)%forgetLength;
+            integralSum -= area[next];
+            area[next] = 0;
         }
-        return sum;
+
+        long term = 0;
+        if(count > 0 && forgetLength > 1){
+            int previous = (head+forgetLength-1)%forgetLength;
+            term = (long)((now - time[previous])/160.0 * ((error + data[previous]) / 2.0));
+        }
+        area[head] = term;
+        integralSum += term;
+
+        data[head] = error;
+        time[head] = now;
+        head = (head+1)%forgetLength;
+        count++;
     }
 
     /**
@@ -108,15 +164,16 @@ public class PIDController {
      */
     public double update(long target, long state) {
         // PID logic and then return the output
-        time.add(System.currentTimeMillis());
+        long now = System.currentTimeMillis();
         long error = target-state;
-        data.add(error);
+        record(now, error);
 
-        if(data.size() < forgetLength+1)
+        if(count < forgetLength+1)
             return proportional*error;
         else{
-            long dNum = data.get(data.size()-1)-data.get(data.size()-forgetLength);
-            long dDen = time.get(time.size()-1)-time.get(time.size()-forgetLength);
+            // Compare against the oldest measurement in the window, which is the next slot to be written
+            long dNum = error-data[head];
+            long dDen = now-time[head];
             if(dDen==0)
                 dDen = (long)1.1;
             return proportional * error + integral * getIntegral() + 1E-8 * derivative * dNum / dDen;
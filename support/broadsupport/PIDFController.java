@@ -0,0 +1,223 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * A double precision PIDF velocity controller.
+ * The output is a feedforward from the target (static friction, velocity and acceleration gains)
+ * plus PID feedback on the error. The derivative acts on the measurement rather than the error so
+ * steps in the target do not kick the output, and is low-pass filtered to keep encoder noise out.
+ * The integral is clamped and stops accumulating while the output is saturated (anti-windup).
+ * Time is measured with System.nanoTime().
+ */
+public class PIDFController {
+    // Feedback gains
+    /**
+     * Proportional gain
+     */
+    private final double kP;
+    /**
+     * Integral gain (per second)
+     */
+    private final double kI;
+    /**
+     * Derivative gain (seconds)
+     */
+    private final double kD;
+
+    // Feedforward gains
+    /**
+     * Static friction gain, applied in the direction of the target
+     */
+    private final double kS;
+    /**
+     * Velocity gain
+     */
+    private final double kV;
+    /**
+     * Acceleration gain
+     */
+    private final double kA;
+
+    /**
+     * Time constant of the derivative low-pass filter (s), zero disables filtering
+     */
+    private final double derivativeFilterTime;
+
+    /**
+     * Largest contribution the integral term may make to the output
+     */
+    private final double integralLimit;
+
+    /**
+     * Largest magnitude of the output, the integral does not grow while the output is held here
+     */
+    private double maxOutput = Double.POSITIVE_INFINITY;
+
+    // State carried between updates
+    /**
+     * Integral of the error (error * s)
+     */
+    private double errorIntegral;
+    /**
+     * Filtered rate of change of the measurement
+     */
+    private double filteredDerivative;
+    /**
+     * Measurement of the previous update
+     */
+    private double lastMeasurement;
+    /**
+     * Target of the previous update
+     */
+    private double lastTarget;
+    /**
+     * Time of the previous update (ns)
+     */
+    private long lastTime;
+    /**
+     * Whether there has been an update since construction or the last reset
+     */
+    private boolean started;
+    /**
+     * Part of the last output that came from feedback rather than feedforward
+     */
+    private double lastFeedback;
+
+    /**
+     * Default constructor - uses the PIDF coefficients in Robot.
+     */
+    public PIDFController(){
+        this(Robot.pidfP, Robot.pidfI, Robot.pidfD, Robot.kS, Robot.kV, Robot.kA,
+                Robot.pidfDerivativeFilter, Robot.pidfIntegralLimit);
+    }
+
+    /**
+     * Construct a PIDF controller
+     * @param kP proportional gain
+     * @param kI integral gain (per second)
+     * @param kD derivative gain (seconds)
+     * @param kS static friction feedforward
+     * @param kV velocity feedforward
+     * @param kA acceleration feedforward
+     * @param derivativeFilterTime time constant of the derivative low-pass filter (s)
+     * @param integralLimit largest contribution of the integral term to the output
+     * Precondition:  derivativeFilterTime and integralLimit are not negative
+     */
+    public PIDFController(double kP, double kI, double kD, double kS, double kV, double kA,
+                          double derivativeFilterTime, double integralLimit){
+        if(derivativeFilterTime < 0 || integralLimit < 0)
+            throw new RuntimeException("derivativeFilterTime and integralLimit in PIDFController.PIDFController(...) must not be negative!");
+
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+        this.derivativeFilterTime = derivativeFilterTime;
+        this.integralLimit = integralLimit;
+    }
+
+    /**
+     * Limit the magnitude of the output, for example to the top speed of a motor
+     * @param maxOutput the largest output magnitude
+     * Precondition:  maxOutput is greater than zero
+     */
+    public final void setMaxOutput(double maxOutput){
+        if(maxOutput <= 0)
+            throw new RuntimeException("maxOutput in PIDFController.setMaxOutput(...) must be greater than zero!");
+        this.maxOutput = maxOutput;
+    }
+
+    /**
+     * Forget the integral, derivative and previous update, keeping the gains.
+     * Postcondition: the controller behaves as if it had just been constructed
+     */
+    public final void reset(){
+        errorIntegral = 0;
+        filteredDerivative = 0;
+        lastFeedback = 0;
+        started = false;
+    }
+
+    /**
+     * Update the controller, estimating the target acceleration from the change in target.
+     * @param target the velocity we would like to be at
+     * @param measurement the velocity we are currently at
+     * @return the output to command
+     */
+    public final double update(double target, double measurement){
+        return update(target, Double.NaN, measurement, System.nanoTime());
+    }
+
+    /**
+     * Update the controller.
+     * @param target the velocity we would like to be at
+     * @param targetAcceleration the rate of change of the target
+     * @param measurement the velocity we are currently at
+     * @return the output to command
+     */
+    public final double update(double target, double targetAcceleration, double measurement){
+        return update(target, targetAcceleration, measurement, System.nanoTime());
+    }
+
+    /**
+     * Update the controller at a given time.
+     * @param target the velocity we would like to be at
+     * @param targetAcceleration the rate of change of the target, NaN to estimate it from the change in target
+     * @param measurement the velocity we are currently at
+     * @param nanoTime the time of the update (ns)
+     * @return the output to command
+     * Postcondition: the output is within the maximum output
+     */
+    public final double update(double target, double targetAcceleration, double measurement, long nanoTime){
+        double error = target - measurement;
+        double dt = started ? (nanoTime - lastTime)/1E9 : 0;
+
+        if(dt > 0){
+            // Derivative on measurement, low-pass filtered
+            double derivative = -(measurement - lastMeasurement)/dt;
+            filteredDerivative += (derivative - filteredDerivative)*dt/(derivativeFilterTime + dt);
+
+            if(Double.isNaN(targetAcceleration))
+                targetAcceleration = (target - lastTarget)/dt;
+        }
+        if(Double.isNaN(targetAcceleration))
+            targetAcceleration = 0;
+
+        double feedforward = kS*Math.signum(target) + kV*target + kA*targetAcceleration;
+
+        // Integrate, clamping so the integral alone never exceeds its limit
+        double previousIntegral = errorIntegral;
+        errorIntegral += error*dt;
+        if(kI != 0){
+            double bound = integralLimit/Math.abs(kI);
+            errorIntegral = Math.max(-bound, Math.min(bound, errorIntegral));
+        }
+
+        double output = feedforward + kP*error + kI*errorIntegral + kD*filteredDerivative;
+
+        // Stop integrating while saturated in the direction the integral is pushing
+        if(Math.abs(output) > maxOutput){
+            if(Math.signum(error) == Math.signum(output)){
+                output -= kI*(errorIntegral - previousIntegral);
+                errorIntegral = previousIntegral;
+            }
+            output = Math.max(-maxOutput, Math.min(maxOutput, output));
+        }
+
+        lastMeasurement = measurement;
+        lastTarget = target;
+        lastTime = nanoTime;
+        lastFeedback = output - feedforward;
+        started = true;
+        return output;
+    }
+
+    /**
+     * Get the correction the PID feedback made in the last update, after output limiting
+     * @return the last output minus its feedforward
+     */
+    public final double getLastFeedback(){
+        return lastFeedback;
+    }
+}
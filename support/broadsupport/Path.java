@@ -56,6 +56,15 @@ public abstract class Path {
      */
     private static double trackWidth;
 
+    /**
+     * Timestep at which built paths are compiled into velocity tables, zero disables compilation
+     */
+    private static double compileTimestep = 0;
+
+    /**
+     * Precompiled velocities of this path, null if the path has not been compiled
+     */
+    private VelocityTable velocityTable;
 
     public void setMoveState(Direction moveState){
         this.moveState = moveState;
@@ -78,6 +87,15 @@ public abstract class Path {
         return trackWidth;
     }
 
+    public static void setCompileTimestep(double compileTimestep){
+        if(compileTimestep < 0)
+            throw new RuntimeException("The compile timestep in Path.setCompileTimestep(...) must not be less than zero!");
+        Path.compileTimestep = compileTimestep;
+    }
+    public static double getCompileTimestep(){
+        return compileTimestep;
+    }
+
     /**
      * Method returning the type of path this specific path is
      *
@@ -148,10 +166,45 @@ public abstract class Path {
      * Postcondition: the construction variable is accurately set
      */
     public final void setBuilt(boolean isBuilt) {
-        if (isBuilt)
+        if (isBuilt) {
             construction = BuildStatus.BUILT;
-        else
+            if (compileTimestep > 0 && velocityTable == null)
+                compile(compileTimestep);
+        }
+        else {
             construction = BuildStatus.UNBUILT;
+            velocityTable = null;
+        }
+    }
+
+    /**
+     * Sample this path's velocity functions into a lookup table used by the lookup methods.
+     * Called automatically when a path is built if a compile timestep has been set.
+     * @param timestep the time between two samples (s)
+     * Precondition:  the execute time of this path has been computed and timestep is greater than zero
+     * Postcondition: the velocity table is set and the completed status is left unchanged
+     */
+    public final void compile(double timestep) {
+        boolean completionStatus = completed;
+        velocityTable = VelocityTable.compile(this, timestep);
+        completed = completionStatus;
+    }
+
+    /**
+     * Install a velocity table that was compiled earlier, used when loading a path from a TrajectoryCache.
+     * A path that is then built keeps this table instead of compiling a new one.
+     * @param velocityTable the precompiled table
+     */
+    final void setVelocityTable(VelocityTable velocityTable) {
+        this.velocityTable = velocityTable;
+    }
+
+    /**
+     * Get the precompiled velocities of this path.
+     * @return the velocity table, or null if this path has not been compiled
+     */
+    public final VelocityTable getVelocityTable() {
+        return velocityTable;
     }
 
     /**
@@ -217,6 +270,162 @@ public abstract class Path {
         return 0;
     }
 
+    /**
+     * Get the left velocity from the velocity table if compiled, otherwise from getLeftVelocity(...).
+     * Precondition: currentTime is greater than zero
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @return the left linear velocity
+     * Postcondition: the path is set to completed once currentTime reaches the execute time
+     */
+    public final double lookupLeftVelocity(double currentTime) {
+        if(velocityTable == null)
+            return getLeftVelocity(currentTime);
+        if(!checkTableTime(currentTime))
+            return 0;
+        return velocityTable.getLeftVelocity(currentTime);
+    }
+
+    /**
+     * Get the right velocity from the velocity table if compiled, otherwise from getRightVelocity(...).
+     * Precondition: currentTime is greater than zero
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @return the right linear velocity
+     * Postcondition: the path is set to completed once currentTime reaches the execute time
+     */
+    public final double lookupRightVelocity(double currentTime) {
+        if(velocityTable == null)
+            return getRightVelocity(currentTime);
+        if(!checkTableTime(currentTime))
+            return 0;
+        return velocityTable.getRightVelocity(currentTime);
+    }
+
+    /**
+     * Get the left angular velocity from the velocity table if compiled, otherwise from getLeftAngularVelocity(...).
+     * Precondition: currentTime is greater than zero
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @return the left angular velocity
+     */
+    public final double lookupLeftAngularVelocity(double currentTime) {
+        if(velocityTable == null)
+            return getLeftAngularVelocity(currentTime);
+        if(!checkTableTime(currentTime))
+            return 0;
+        return velocityTable.getLeftAngularVelocity(currentTime);
+    }
+
+    /**
+     * Get the right angular velocity from the velocity table if compiled, otherwise from getRightAngularVelocity(...).
+     * Precondition: currentTime is greater than zero
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @return the right angular velocity
+     */
+    public final double lookupRightAngularVelocity(double currentTime) {
+        if(velocityTable == null)
+            return getRightAngularVelocity(currentTime);
+        if(!checkTableTime(currentTime))
+            return 0;
+        return velocityTable.getRightAngularVelocity(currentTime);
+    }
+
+    /**
+     * Sample every velocity of this path at a single time into a reusable command, from the
+     * velocity table if compiled and otherwise from sampleAnalytic(...).
+     * Precondition: currentTime is greater than zero and command is not null
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @param command is the holder to write the velocities to
+     * Postcondition: command holds all velocities at currentTime and the path is set to
+     * completed once currentTime reaches the execute time
+     */
+    public final void sample(double currentTime, WheelCommand command) {
+        if(currentTime < 0 || command == null)
+            throw new RuntimeException("The time in Path.sample(...) must not be less than zero and the command must not be null!");
+
+        if(velocityTable == null)
+            sampleAnalytic(currentTime, command);
+        else
+            velocityTable.sample(currentTime, command);
+
+        if(command.getCompleted())
+            setCompleted(true);
+    }
+
+    /**
+     * Sample the analytic velocity functions at a single time - meant to be overridden by paths that
+     * can share work between the four velocities, defaults to calling each of them.
+     *
+     * @param currentTime is the current time into this specific Path.
+     * @param command is the holder to write the velocities to
+     */
+    protected void sampleAnalytic(double currentTime, WheelCommand command) {
+        command.set(getLeftVelocity(currentTime), getRightVelocity(currentTime),
+                getLeftAngularVelocity(currentTime), getRightAngularVelocity(currentTime), getCompleted());
+    }
+
+    /**
+     * Check a time against the velocity table, marking this path completed once it has run out.
+     * @param currentTime is the current time into this specific Path.
+     * @return true if the table still holds velocities for this time
+     */
+    private boolean checkTableTime(double currentTime) {
+        if(currentTime < 0)
+            throw new RuntimeException("The time to look up in Path.checkTableTime(...) must not be less than zero!");
+        if(velocityTable.isComplete(currentTime)) {
+            setCompleted(true);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the parameters this path was constructed with - meant to be overridden, defaults to none.
+     * Every parameter that changes the velocities of the path must be included.
+     *
+     * @return the parameters of this path
+     */
+    protected double[] getParameters() {
+        return new double[0];
+    }
+
+    /**
+     * Fingerprint this path from its type, direction, parameters and the static drive configuration.
+     * Two paths with the same fingerprint compile to the same velocity table.
+     *
+     * @return a 64 bit FNV-1a hash of everything the compiled velocities depend on
+     */
+    public final long getFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        String name = getClass().getName();
+        for(int i=0;i<name.length();i++)
+            hash = fingerprintStep(hash, name.charAt(i));
+        hash = fingerprintStep(hash, moveState.ordinal());
+        hash = fingerprintStep(hash, symmetryState == null ? -1 : symmetryState.ordinal());
+        hash = fingerprintStep(hash, Double.doubleToLongBits(trackWidth));
+        hash = fingerprintStep(hash, Double.doubleToLongBits(compileTimestep));
+        for(double parameter : getParameters())
+            hash = fingerprintStep(hash, Double.doubleToLongBits(parameter));
+        return hash;
+    }
+
+    /**
+     * Mix the eight bytes of a value into an FNV-1a hash
+     * @param hash the hash so far
+     * @param value the value to mix in
+     * @return the new hash
+     */
+    private static long fingerprintStep(long hash, long value) {
+        for(int i=0;i<8;i++) {
+            hash ^= (value >>> (8*i)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
     /**
      * Method to convert distance for a simple 2/4/6 wheel drivetrain - NOT diffy swerve!
      * @param wheelRadius is the radius, NOT DIAMETER, of the wheel
@@ -74,6 +74,34 @@ public class PathSequence {
         this.drivetrainType = drivetrainType;
     }
 
+    /**
+     * Constructor for any drivetrain driving VelocityMotors against a given clock, for example
+     * simulated motors and a SimulatedClock to follow paths headless faster than real time.
+     * Motors are ordered as in the other constructors: left motors then right motors, or for DIFFY
+     * left front, left back, right front, right back.
+     * @param drivetrainType the type of drivetrain used (TWOWD, FOURWD, SIXWD, DIFFY)
+     * @param paths the list of paths for the robot to follow
+     * @param motors the motors of the drivetrain
+     * @param wheelR the radius of the wheel
+     * @param clock the time to follow the paths against
+     * Precondition:  motors holds as many motors as the drivetrain type has
+     */
+    public PathSequence(Drivetrain drivetrainType, ArrayList<Path> paths, VelocityMotor[] motors, double wheelR, Clock clock){
+        int expected = drivetrainType == Drivetrain.TWOWD ? 2 : drivetrainType == Drivetrain.SIXWD ? 6 : 4;
+        if(motors == null || motors.length != expected)
+            throw new RuntimeException("motors in PathSequence.PathSequence(...) must hold "+expected+" motors for "+drivetrainType+"!");
+
+        if(drivetrainType == Drivetrain.TWOWD)
+            sequence = new TwoWheelPathSequence(paths, motors[0], motors[1], wheelR, clock);
+        else if(drivetrainType == Drivetrain.FOURWD)
+            sequence = new FourWheelPathSequence(paths, motors[0], motors[1], motors[2], motors[3], wheelR, clock);
+        else if(drivetrainType == Drivetrain.SIXWD)
+            sequence = new SixWheelPathSequence(paths, motors[0], motors[1], motors[2], motors[3], motors[4], motors[5], wheelR, clock);
+        else if(drivetrainType == Drivetrain.DIFFY)
+            sequence = new DiffyPathSequence(paths, motors[0], motors[1], motors[2], motors[3], wheelR, clock);
+        this.drivetrainType = drivetrainType;
+    }
+
     /**
      * Method to get the path sequence
      * @return the path sequence
@@ -86,6 +114,84 @@ public class PathSequence {
         return sequence;
     }
 
+    /**
+     * Set the cache compiled paths are kept in between runs
+     * @param trajectoryCache the cache, or null to always compile
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setTrajectoryCache(TrajectoryCache trajectoryCache){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setTrajectoryCache(...) if the sequence is null!");
+        sequence.setTrajectoryCache(trajectoryCache);
+    }
+
+    /**
+     * Enable or disable building the next path in the background while following
+     * @param lookahead true to build ahead, false to build unbuilt paths inline
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setLookahead(boolean lookahead){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setLookahead(...) if the sequence is null!");
+        sequence.setLookahead(lookahead);
+    }
+
+    /**
+     * Track the robot's pose while following instead of only the wheel velocities
+     * @param poseTracker the tracker, or null to follow open loop in pose
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setPoseTracker(PoseTracker poseTracker){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setPoseTracker(...) if the sequence is null!");
+        sequence.setPoseTracker(poseTracker);
+    }
+
+    /**
+     * Run markers at points along the trajectory while following
+     * @param progressMarkers the markers, or null for none
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setProgressMarkers(ProgressMarkerList progressMarkers){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setProgressMarkers(...) if the sequence is null!");
+        sequence.setProgressMarkers(progressMarkers);
+    }
+
+    /**
+     * Time each part of the follower's cycles while following, showing the timings on its telemetry
+     * @param loopProfiler the profiler, or null to not time cycles
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setLoopProfiler(LoopProfiler loopProfiler){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setLoopProfiler(...) if the sequence is null!");
+        sequence.setLoopProfiler(loopProfiler);
+    }
+
+    /**
+     * Record what the follower commanded and measured every cycle to a file while following
+     * @param flightRecorder the recorder, or null to not record
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void setFlightRecorder(FlightRecorder flightRecorder){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.setFlightRecorder(...) if the sequence is null!");
+        sequence.setFlightRecorder(flightRecorder);
+    }
+
+    /**
+     * Replace a path that has not started yet, safe to call while following
+     * @param i the index of the path to replace
+     * @param path the new path
+     * Precondition:  sequence is not null and has been instantiated
+     */
+    public final void replacePath(int i, Path path){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.replacePath(...) if the sequence is null!");
+        sequence.replacePath(i, path);
+    }
+
     /**
      * Build all of the paths in the passed sequence object
      * Precondition:  sequence is not null and has been instantiated
@@ -97,6 +203,19 @@ public class PathSequence {
         sequence.buildAll();
     }
 
+    /**
+     * Build all of the paths in the passed sequence object concurrently
+     * @param parallelism the maximum amount of paths built at the same time
+     * @param progress is notified from the calling thread as paths finish, may be null
+     * Precondition:  sequence is not null and has been instantiated
+     * Postcondition: each path in sequence has been built
+     */
+    public final void buildAllParallel(int parallelism, BuildProgress progress){
+        if(sequence == null)
+            throw new RuntimeException("Cannot run PathSequence.buildAllParallel(...) if the sequence is null!");
+        sequence.buildAllParallel(parallelism, progress);
+    }
+
     /**
      * Actually follow the passed sequence object
      * Precondition:  sequence is not null and has been instantiated
@@ -1,6 +1,19 @@
 package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class PathSequenceFather {
     // Common variables and objects among all path sequences
@@ -14,6 +27,310 @@ public abstract class PathSequenceFather {
      */
     protected double wheelRadius;
 
+    /**
+     * Cache of compiled paths kept between runs, null to always compile
+     */
+    private TrajectoryCache trajectoryCache;
+
+    /**
+     * How often progress is reported while building in parallel (ms)
+     */
+    private static final long BUILD_PROGRESS_PERIOD = 50;
+
+    /**
+     * Whether the next path is built on a background thread while the current one is followed
+     */
+    private volatile boolean lookahead = false;
+
+    /**
+     * Background thread building paths ahead of the follower, created when first needed, guarded by pendingBuilds
+     */
+    private ExecutorService lookaheadExecutor;
+
+    /**
+     * Paths being built in the background, guarded by itself since replacePath(...) may submit from any thread
+     */
+    private final IdentityHashMap<Path, Future<?>> pendingBuilds = new IdentityHashMap<>();
+
+    /**
+     * Corrects the commanded velocities toward a reference pose, null to follow open loop in pose
+     */
+    private PoseTracker poseTracker;
+
+    /**
+     * Markers run at points along the trajectory, null for none, read by the threads building paths
+     */
+    private volatile ProgressMarkerList progressMarkers;
+
+    /**
+     * Times each part of the follower's cycles, null to not time them
+     */
+    private LoopProfiler loopProfiler;
+
+    /**
+     * Records what the follower commanded and measured every cycle, null to not record
+     */
+    private FlightRecorder flightRecorder;
+
+    /**
+     * Enable or disable building the next path in the background while following
+     * @param lookahead true to build ahead, false to build unbuilt paths inline
+     */
+    public final void setLookahead(boolean lookahead){
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Track the robot's pose while following instead of only the wheel velocities
+     * @param poseTracker the tracker, or null to follow open loop in pose
+     */
+    public final void setPoseTracker(PoseTracker poseTracker){
+        this.poseTracker = poseTracker;
+    }
+
+    /**
+     * Get the pose tracker used while following
+     * @return the tracker, or null if following open loop in pose
+     */
+    protected final PoseTracker getPoseTracker(){
+        return poseTracker;
+    }
+
+    /**
+     * Run markers at points along the trajectory while following, checked inline by the follower
+     * @param progressMarkers the markers, or null for none
+     */
+    public final void setProgressMarkers(ProgressMarkerList progressMarkers){
+        this.progressMarkers = progressMarkers;
+        // Paths built from now on are measured as they are built, measure those built already
+        if(progressMarkers != null && trajectory != null)
+            for(Path path : trajectory)
+                if(path.getBuilt())
+                    progressMarkers.measure(path);
+    }
+
+    /**
+     * Get the markers run at points along the trajectory
+     * @return the markers, or null if there are none
+     */
+    protected final ProgressMarkerList getProgressMarkers(){
+        return progressMarkers;
+    }
+
+    /**
+     * Time each part of the follower's cycles while following
+     * @param loopProfiler the profiler, or null to not time cycles
+     */
+    public final void setLoopProfiler(LoopProfiler loopProfiler){
+        this.loopProfiler = loopProfiler;
+    }
+
+    /**
+     * Get the profiler timing the follower's cycles
+     * @return the profiler, or null if cycles are not timed
+     */
+    protected final LoopProfiler getLoopProfiler(){
+        return loopProfiler;
+    }
+
+    /**
+     * Record what the follower commanded and measured every cycle while following
+     * @param flightRecorder the recorder, or null to not record
+     */
+    public final void setFlightRecorder(FlightRecorder flightRecorder){
+        this.flightRecorder = flightRecorder;
+    }
+
+    /**
+     * Get the recorder of the follower's cycles
+     * @return the recorder, or null if cycles are not recorded
+     */
+    protected final FlightRecorder getFlightRecorder(){
+        return flightRecorder;
+    }
+
+    /**
+     * Get the Path at an index, safe to call while another thread replaces paths
+     * @param i the index of the Path
+     * @return the Path at position i
+     */
+    protected final synchronized Path getPath(int i){
+        if(trajectory == null)
+            throw new RuntimeException("Trajectory in PathSequenceFather.getPath(...) must not be null!");
+        return trajectory.get(i);
+    }
+
+    /**
+     * Get the amount of paths in the trajectory
+     * @return the amount of paths
+     */
+    protected final synchronized int getPathCount(){
+        if(trajectory == null)
+            throw new RuntimeException("Trajectory in PathSequenceFather.getPathCount() must not be null!");
+        return trajectory.size();
+    }
+
+    /**
+     * Replace a path that has not started yet, for example after a vision result. Safe to call from
+     * any thread while following; with lookahead on the new path starts building in the background
+     * right away, and a build of the old path that has not started yet is cancelled.
+     * @param i the index of the Path to replace
+     * @param path the new Path
+     * Precondition:  i is a valid index and path is not null
+     * Postcondition: the Path at position i will be followed when the sequence reaches it
+     */
+    public final synchronized void replacePath(int i, Path path){
+        if(trajectory == null || path == null)
+            throw new RuntimeException("Trajectory and path in PathSequenceFather.replacePath(...) must not be null!");
+        if(i < 0 || i >= trajectory.size())
+            throw new RuntimeException("Index in PathSequenceFather.replacePath(...) is not valid!");
+        Path old = trajectory.set(i, path);
+        if(!lookahead)
+            return;
+
+        // The old path may still be elsewhere in the trajectory, only drop its build if it is not
+        boolean stillUsed = false;
+        for(Path other : trajectory)
+            stillUsed |= other == old;
+        synchronized(pendingBuilds){
+            if(!stillUsed && old != path){
+                Future<?> stale = pendingBuilds.get(old);
+                if(stale != null && stale.cancel(false))
+                    pendingBuilds.remove(old);
+            }
+        }
+        submitBuild(path);
+    }
+
+    /**
+     * Start building the Path at an index in the background if lookahead is enabled.
+     * Called by the follower when it starts following the path before it.
+     * @param i the index of the Path to build ahead, ignored if past the end
+     * Postcondition: the path is built or being built, unless lookahead is off
+     */
+    protected final void prefetch(int i){
+        if(!lookahead || i < 0 || i >= getPathCount())
+            return;
+        submitBuild(getPath(i));
+    }
+
+    /**
+     * Check whether a path can be followed without blocking. An unbuilt path is built inline when
+     * lookahead is off, otherwise it is handed to the background thread and this returns false
+     * until the build is done, so the caller can keep its control loop running.
+     * @param path the Path about to be followed
+     * @return true once the path has been built
+     * Postcondition: if the background build failed, its error is thrown
+     */
+    protected final boolean isReady(Path path){
+        Future<?> pending;
+        synchronized(pendingBuilds){
+            pending = pendingBuilds.get(path);
+            if(pending != null && pending.isDone())
+                pendingBuilds.remove(path);
+        }
+        if(pending == null){
+            if(path.getBuilt())
+                return true;
+            if(!lookahead){
+                buildPath(path);
+                return true;
+            }
+            submitBuild(path);
+            return false;
+        }
+        if(!pending.isDone())
+            return false;
+
+        try{
+            // Already done, so this does not block but makes the built path visible to this thread
+            pending.get();
+        }
+        catch(ExecutionException e){
+            throw new RuntimeException("Failed to build a path in PathSequenceFather.isReady(...)!", e.getCause());
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building a path in PathSequenceFather.isReady(...)!", e);
+        }
+        return true;
+    }
+
+    /**
+     * Hand a path to the background thread unless it is already built or being built
+     * @param path the Path to build
+     */
+    private void submitBuild(final Path path){
+        synchronized(pendingBuilds){
+            if(pendingBuilds.containsKey(path) || path.getBuilt())
+                return;
+            if(lookaheadExecutor == null)
+                lookaheadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "path-lookahead");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.NORM_PRIORITY-1);
+                        return thread;
+                    }
+                });
+            pendingBuilds.put(path, lookaheadExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    buildPath(path);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Stop the background build thread, called once the sequence has been followed
+     * Postcondition: no path is being built in the background
+     */
+    protected final void stopLookahead(){
+        synchronized(pendingBuilds){
+            if(lookaheadExecutor != null)
+                lookaheadExecutor.shutdownNow();
+            lookaheadExecutor = null;
+            pendingBuilds.clear();
+        }
+    }
+
+    /**
+     * Set the cache compiled paths are loaded from and stored to when they are built
+     * @param trajectoryCache the cache, or null to always compile
+     */
+    public final void setTrajectoryCache(TrajectoryCache trajectoryCache){
+        this.trajectoryCache = trajectoryCache;
+    }
+
+    /**
+     * Build a Path, loading its compiled velocities from the trajectory cache when they are cached
+     * and storing them when they are not.
+     * @param path the Path to build
+     * Precondition:  path is not null
+     * Postcondition: the path has been built, and measured for the progress markers
+     */
+    protected final void buildPath(Path path){
+        if(path == null)
+            throw new RuntimeException("Path in PathSequenceFather.buildPath(...) must not be null!");
+        if(trajectoryCache == null || Path.getCompileTimestep() <= 0)
+            path.build();
+        else{
+            // Fingerprint before building since building may change the state of the path
+            long fingerprint = path.getFingerprint();
+            path.setBuilt(false);
+            boolean cached = trajectoryCache.load(path, fingerprint);
+            path.build();
+            if(!cached && path.getVelocityTable() != null)
+                trajectoryCache.store(path, fingerprint);
+        }
+
+        // Measured here, on the building thread, rather than by the follower when the path begins
+        ProgressMarkerList markers = progressMarkers;
+        if(markers != null)
+            markers.measure(path);
+    }
 
     /**
      * Build each Path in the trajectory.
@@ -24,8 +341,77 @@ public abstract class PathSequenceFather {
         if(trajectory == null)
             throw new RuntimeException("Trajectory in PathSequenceFather.buildAll() must not be null!");
         for(Path path : trajectory)
-            path.build();
+            buildPath(path);
+    }
+    /**
+     * Build each distinct Path in the trajectory concurrently on a bounded fork-join pool.
+     * Blocks until every path has been built, reporting progress from the calling thread.
+     * @param parallelism the maximum amount of paths built at the same time
+     * @param progress is notified whenever more paths have finished, may be null
+     * Precondition:  trajectory is not null and parallelism is greater than zero
+     * Postcondition: all paths have been successfully built, otherwise the first build error is thrown
+     */
+    protected final void buildAllParallel(int parallelism, BuildProgress progress){
+        if(trajectory == null)
+            throw new RuntimeException("Trajectory in PathSequenceFather.buildAllParallel(...) must not be null!");
+        if(parallelism < 1)
+            throw new RuntimeException("Parallelism in PathSequenceFather.buildAllParallel(...) must be greater than zero!");
+
+        // The same Path may be in the trajectory more than once, only build it once
+        Set<Path> distinctPaths = Collections.newSetFromMap(new IdentityHashMap<Path, Boolean>());
+        distinctPaths.addAll(trajectory);
+
+        int total = distinctPaths.size();
+        final AtomicInteger built = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(total);
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, Math.max(total, 1)));
+        try{
+            for(final Path path : distinctPaths)
+                tasks.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try{
+                            buildPath(path);
+                            built.incrementAndGet();
+                        }
+                        finally{
+                            finished.countDown();
+                        }
+                    }
+                }));
+
+            // Report progress until every task has either built its path or failed
+            int reported = -1;
+            while(true){
+                boolean done = finished.await(BUILD_PROGRESS_PERIOD, TimeUnit.MILLISECONDS);
+                int current = built.get();
+                if(progress != null && current != reported){
+                    progress.update(current, total);
+                    reported = current;
+                }
+                if(done)
+                    break;
+            }
+
+            // Surface the first failure, if any
+            for(ForkJoinTask<?> task : tasks)
+                task.join();
+        }
+        catch(InterruptedException e){
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building paths in PathSequenceFather.buildAllParallel(...)!", e);
+        }
+        catch(RuntimeException e){
+            throw new RuntimeException("Failed to build a path in PathSequenceFather.buildAllParallel(...)!", e);
+        }
+        finally{
+            pool.shutdown();
+        }
     }
+
     /**
      * Build a specific trajectory
      * @param i the index of the Path that you want to build.
@@ -37,7 +423,7 @@ public abstract class PathSequenceFather {
             throw new RuntimeException("Trajectory in PathSequenceFather.build(...) must not be null!");
         if(i < 0)
             throw new RuntimeException("Index in PathSequenceFather.buildAll() is not valid!");
-        trajectory.get(i).build();
+        buildPath(trajectory.get(i));
     }
 
     /**
@@ -0,0 +1,88 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Reusable holder for the position and heading of the robot on the field.
+ * Readers keep one and have it filled in (for example by ThreeWheelLocalizer.getPose(...)) so
+ * reading the pose every cycle does not allocate.
+ */
+public class Pose {
+    /**
+     * Below this change in heading (rad) an arc is integrated with a series expansion
+     */
+    private static final double SMALL_ANGLE = 1E-6;
+
+    /**
+     * Position along the field x axis (m)
+     */
+    private double x;
+    /**
+     * Position along the field y axis (m)
+     */
+    private double y;
+    /**
+     * Heading, counterclockwise from the x axis (rad)
+     */
+    private double heading;
+    /**
+     * System.nanoTime() at which the pose was measured
+     */
+    private long time;
+
+    /**
+     * Overwrite every value of this pose.
+     * @param x the x position
+     * @param y the y position
+     * @param heading the heading
+     * @param time the System.nanoTime() at which the pose was measured
+     */
+    public final void set(double x, double y, double heading, long time){
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.time = time;
+    }
+
+    /**
+     * Move the pose along a constant curvature arc given in the robot frame.
+     * The arc is integrated exactly, so the only error comes from the curvature changing within one move.
+     * @param forward the distance moved forward (m)
+     * @param strafe the distance moved left (m)
+     * @param dTheta the change in heading (rad)
+     * Postcondition: the pose has moved, the time is unchanged
+     */
+    public final void move(double forward, double strafe, double dTheta){
+        // sin(dTheta)/dTheta and (1-cos(dTheta))/dTheta, by series when dTheta is tiny
+        double sine;
+        double cosine;
+        if(Math.abs(dTheta) < SMALL_ANGLE){
+            sine = 1 - dTheta*dTheta/6;
+            cosine = dTheta/2;
+        }
+        else{
+            sine = Math.sin(dTheta)/dTheta;
+            cosine = (1 - Math.cos(dTheta))/dTheta;
+        }
+
+        double dx = forward*sine - strafe*cosine;
+        double dy = forward*cosine + strafe*sine;
+
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        x += dx*cos - dy*sin;
+        y += dx*sin + dy*cos;
+        heading += dTheta;
+    }
+
+    public final double getX(){
+        return x;
+    }
+    public final double getY(){
+        return y;
+    }
+    public final double getHeading(){
+        return heading;
+    }
+    public final long getTime(){
+        return time;
+    }
+}
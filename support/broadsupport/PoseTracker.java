@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.DrivetrainSymmetry;
+
+/**
+ * Closes the loop on pose while following time based paths.
+ * The side velocities each path commands are turned into a reference twist, which is integrated
+ * into a reference pose carried across the whole sequence. Every cycle a RamseteController compares
+ * the reference with the localizer's pose and the command is replaced by the side velocities that
+ * steer the robot back onto the reference, so drift does not build up from path to path.
+ * Pod angular velocities of a differential swerve are passed through unchanged.
+ */
+public class PoseTracker {
+    /**
+     * Where the robot actually is
+     */
+    private final Localizer localizer;
+
+    /**
+     * Tracking controller
+     */
+    private final RamseteController controller;
+
+    /**
+     * Where the robot should be
+     */
+    private final Pose reference = new Pose();
+
+    /**
+     * Latest pose read from the localizer
+     */
+    private final Pose pose = new Pose();
+
+    /**
+     * Sign of a forward command on each side, from the drivetrain symmetry
+     */
+    private double leftForward, rightForward;
+
+    /**
+     * Time into the current path of the last correction (s)
+     */
+    private double lastTime;
+
+    /**
+     * Create a tracker
+     * @param localizer where the robot's pose is read from, updating on its own
+     * @param controller the tracking controller
+     */
+    public PoseTracker(Localizer localizer, RamseteController controller){
+        if(localizer == null || controller == null)
+            throw new RuntimeException("localizer and controller in PoseTracker.PoseTracker(...) must not be null!");
+        this.localizer = localizer;
+        this.controller = controller;
+    }
+
+    /**
+     * Start tracking a sequence from wherever the robot is now
+     * Precondition:  the symmetry state of Path has been set
+     * Postcondition: the reference pose is the robot's pose
+     */
+    public final void begin(){
+        int[][] lookup = Path.getSymmetryState() == DrivetrainSymmetry.ASYMMETRICAL
+                ? Path.asymmetricalDriveCoefficientLookup : Path.symmetricalDriveCoefficientLookup;
+        leftForward = lookup[0][0];
+        rightForward = lookup[1][0];
+
+        localizer.getPose(pose);
+        reference.set(pose.getX(), pose.getY(), pose.getHeading(), pose.getTime());
+        lastTime = 0;
+    }
+
+    /**
+     * Start tracking the next path of the sequence, continuing from the reference pose the last one ended at
+     */
+    public final void beginPath(){
+        lastTime = 0;
+    }
+
+    /**
+     * Advance the reference to a time into the current path and correct a command toward it.
+     * @param time the time into the current path (s)
+     * @param command the command sampled from the path at that time, corrected in place
+     * Postcondition: command holds side velocities that track the reference pose
+     */
+    public final void correct(double time, WheelCommand command){
+        if(command.getCompleted())
+            return;
+
+        double trackWidth = Path.getTrackWidth();
+
+        // Reference twist from the physical forward velocity of each side
+        double left = command.getLeftVelocity()*leftForward;
+        double right = command.getRightVelocity()*rightForward;
+        double velocity = (left + right)/2;
+        double angularVelocity = (right - left)/trackWidth;
+
+        double dt = Math.max(0, time - lastTime);
+        lastTime = time;
+        reference.move(velocity*dt, 0, angularVelocity*dt);
+
+        localizer.getPose(pose);
+        controller.calculate(pose, reference.getX(), reference.getY(), reference.getHeading(), velocity, angularVelocity);
+
+        double correctedVelocity = controller.getVelocity();
+        double correctedAngularVelocity = controller.getAngularVelocity();
+        command.set((correctedVelocity - correctedAngularVelocity*trackWidth/2)*leftForward,
+                (correctedVelocity + correctedAngularVelocity*trackWidth/2)*rightForward,
+                command.getLeftAngularVelocity(), command.getRightAngularVelocity(), false);
+    }
+
+    /**
+     * Copy the reference pose, for example to display the tracking error
+     * @param out the pose to fill in
+     */
+    public final void getReference(Pose out){
+        out.set(reference.getX(), reference.getY(), reference.getHeading(), reference.getTime());
+    }
+}
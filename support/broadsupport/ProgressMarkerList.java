@@ -0,0 +1,460 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.enumerations.ProgressType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Markers that run at a point along the trajectory instead of at a time since the start of auto.
+ * Each marker is placed by the index of a Path in the sequence and a fraction of either the time
+ * that path takes or the distance the wheels travel along it, so it runs at the same place even
+ * when an earlier path runs slower or faster than planned.
+ *
+ * The follower checks the markers inline in its control loop: only the next marker of each type
+ * is looked at, so it costs a comparison or two per cycle and no thread of its own. Due markers
+ * are handed to a MarkerExecutor to run beside the loop without ever blocking it: when the
+ * executor's queue is full they wait here, in order, and are handed off on a later cycle, or by
+ * finish(...) once the last path has been followed.
+ * The distance of a path is measured when it is built, so the follower does not measure it when
+ * the path begins. Distance is the planned distance the wheels travel, from the commanded
+ * velocities: markers placed by distance are spaced by where the path covers ground, but do not
+ * wait for a robot that lags behind the plan.
+ */
+public class ProgressMarkerList {
+    /**
+     * Amount of markers the arrays hold before they have to grow
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Amount of samples used to measure the distance of a path
+     */
+    private static final int DISTANCE_SAMPLES = 200;
+
+    // Parallel arrays, index i is marker i in the order added
+    /**
+     * The markers to run
+     */
+    private InsertMarker[] markers = new InsertMarker[INITIAL_CAPACITY];
+    /**
+     * Index of the path each marker runs on
+     */
+    private int[] paths = new int[INITIAL_CAPACITY];
+    /**
+     * Fraction of the path at which each marker runs
+     */
+    private double[] fractions = new double[INITIAL_CAPACITY];
+    /**
+     * Whether each marker is placed by distance rather than time
+     */
+    private boolean[] byDistance = new boolean[INITIAL_CAPACITY];
+    /**
+     * Amount of markers added
+     */
+    private int count = 0;
+
+    /**
+     * Markers placed by time and by distance, each sorted by path and then fraction,
+     * null until sorted after a marker was added
+     */
+    private int[] timeOrder = null, distanceOrder = null;
+    /**
+     * Position in timeOrder and distanceOrder of the next marker to run
+     */
+    private int timeCursor = 0, distanceCursor = 0;
+
+    /**
+     * Whether any marker is placed by distance, read by the threads building paths
+     */
+    private volatile boolean distanceMarkers = false;
+
+    /**
+     * Distance the wheels travel along each built path (m), measured by the thread that built it
+     */
+    private final Map<Path, Double> distances = new IdentityHashMap<>();
+
+    // Ring of due markers the executor had no room for, in the order they became due
+    /**
+     * Indices of the waiting markers, with room for every marker so it never fills
+     */
+    private int[] waiting = new int[0];
+    /**
+     * Position in waiting of the first waiting marker
+     */
+    private int waitingHead = 0;
+    /**
+     * Amount of waiting markers
+     */
+    private int waitingCount = 0;
+
+    /**
+     * Pool the markers run on, made when the first path begins and replaced after stop() if this
+     * list created it
+     */
+    private MarkerExecutor executor;
+
+    /**
+     * Whether this list created its pool, and so may create a new one once it has been stopped
+     */
+    private final boolean ownsExecutor;
+
+    // State of the path being followed
+    /**
+     * Index of the path being followed, -1 before the first
+     */
+    private int currentPath = -1;
+    /**
+     * Time the path being followed takes (s)
+     */
+    private double pathTime = 0;
+    /**
+     * Distance the wheels travel along the path being followed (m)
+     */
+    private double pathDistance = 0;
+    /**
+     * Commanded distance travelled along the path being followed so far (m)
+     */
+    private double travelled = 0;
+    /**
+     * Time into the path at the last update (s)
+     */
+    private double lastTime = 0;
+    /**
+     * Reusable command to measure the distance of a path without touching the follower's
+     */
+    private final WheelCommand sample = new WheelCommand();
+
+    /**
+     * Create an empty list running its markers on a pool with a worker per marker, up to
+     * Robot.markerThreads, made when the first path begins. The list can be followed again after
+     * stop(), on a new pool.
+     */
+    public ProgressMarkerList(){
+        this.executor = null;
+        this.ownsExecutor = true;
+    }
+
+    /**
+     * Create an empty list running its markers on the given pool. stop() shuts the pool down for
+     * good, so once stopped no marker of this list runs again.
+     * @param executor the pool to run the markers on, shut down by stop()
+     * Precondition:  executor is not null
+     */
+    public ProgressMarkerList(MarkerExecutor executor){
+        if(executor == null)
+            throw new RuntimeException("executor in ProgressMarkerList.ProgressMarkerList(...) must not be null!");
+        this.executor = executor;
+        this.ownsExecutor = false;
+    }
+
+    /**
+     * Add a marker at a fraction of the time a path takes
+     * @param path the index of the Path in the sequence
+     * @param fraction how far into the path to run the marker, from 0 to 1
+     * @param marker the marker to run
+     * @return this list, to chain adds
+     */
+    public final ProgressMarkerList atTime(int path, double fraction, InsertMarker marker){
+        return add(path, fraction, ProgressType.TIME, marker);
+    }
+
+    /**
+     * Add a marker at a fraction of the planned distance the wheels travel along a path
+     * @param path the index of the Path in the sequence
+     * @param fraction how far along the path to run the marker, from 0 to 1
+     * @param marker the marker to run
+     * @return this list, to chain adds
+     */
+    public final ProgressMarkerList atDistance(int path, double fraction, InsertMarker marker){
+        return add(path, fraction, ProgressType.DISTANCE, marker);
+    }
+
+    /**
+     * Add a marker at a point along the trajectory
+     * @param path the index of the Path in the sequence
+     * @param fraction how far into the path to run the marker, from 0 to 1
+     * @param type whether the fraction is of the path's time or distance
+     * @param marker the marker to run
+     * @return this list, to chain adds
+     * Precondition:  path is not negative, fraction is between 0 and 1, type and marker are not null
+     *                and the list is not being followed
+     */
+    public final synchronized ProgressMarkerList add(int path, double fraction, ProgressType type, InsertMarker marker){
+        if(marker == null || type == null)
+            throw new RuntimeException("marker and type in ProgressMarkerList.add(...) must not be null!");
+        if(path < 0 || !(fraction >= 0 && fraction <= 1))
+            throw new RuntimeException("path must not be negative and fraction must be between 0 and 1 in ProgressMarkerList.add(...)!");
+
+        if(count == markers.length){
+            markers = Arrays.copyOf(markers, count*2);
+            paths = Arrays.copyOf(paths, count*2);
+            fractions = Arrays.copyOf(fractions, count*2);
+            byDistance = Arrays.copyOf(byDistance, count*2);
+        }
+        markers[count] = marker;
+        paths[count] = path;
+        fractions[count] = fraction;
+        byDistance[count] = type == ProgressType.DISTANCE;
+        count++;
+        if(type == ProgressType.DISTANCE)
+            distanceMarkers = true;
+
+        timeOrder = null;
+        distanceOrder = null;
+        return this;
+    }
+
+    /**
+     * Get the amount of markers added
+     * @return the amount of markers
+     */
+    public final synchronized int size(){
+        return count;
+    }
+
+    /**
+     * Sort the markers of one type by path and then fraction
+     * @param distance true for the markers placed by distance
+     * @return the indices of the markers in the order they run
+     */
+    private int[] sorted(boolean distance){
+        Integer[] order = new Integer[count];
+        int n = 0;
+        for(int i=0;i<count;i++)
+            if(byDistance[i] == distance)
+                order[n++] = i;
+        order = Arrays.copyOf(order, n);
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if(paths[a] != paths[b])
+                    return paths[a] < paths[b] ? -1 : 1;
+                return Double.compare(fractions[a], fractions[b]);
+            }
+        });
+
+        int[] indices = new int[n];
+        for(int i=0;i<n;i++)
+            indices[i] = order[i];
+        return indices;
+    }
+
+    /**
+     * Measure the distance the wheels travel along a path, called by whichever thread built it so
+     * the follower does not have to when the path begins. Does nothing without distance markers.
+     * @param path the Path that has just been built
+     */
+    final void measure(Path path){
+        if(!distanceMarkers)
+            return;
+        double distance = measureDistance(path, path.getExecuteTime(), new WheelCommand());
+        synchronized(distances){
+            distances.put(path, distance);
+        }
+    }
+
+    /**
+     * Start checking the markers of a path, called by the follower once the path is built and
+     * before its first sample.
+     * @param index the index of the Path in the sequence
+     * @param path the Path about to be followed
+     * Postcondition: markers of earlier paths that did not run are skipped
+     */
+    final synchronized void beginPath(int index, Path path){
+        if(timeOrder == null){
+            timeOrder = sorted(false);
+            distanceOrder = sorted(true);
+            timeCursor = 0;
+            distanceCursor = 0;
+            waiting = new int[count];
+            waitingHead = 0;
+            waitingCount = 0;
+        }
+        // Following the sequence again starts from the first marker, on a new pool if stop() shut down ours
+        if(index <= currentPath){
+            timeCursor = 0;
+            distanceCursor = 0;
+            waitingHead = 0;
+            waitingCount = 0;
+        }
+        if(ownsExecutor && (executor == null || executor.isShutdown()))
+            executor = new MarkerExecutor(count);
+        while(timeCursor < timeOrder.length && paths[timeOrder[timeCursor]] < index)
+            timeCursor++;
+        while(distanceCursor < distanceOrder.length && paths[distanceOrder[distanceCursor]] < index)
+            distanceCursor++;
+
+        currentPath = index;
+        pathTime = path.getExecuteTime();
+        travelled = 0;
+        lastTime = 0;
+        pathDistance = 0;
+        if(distanceCursor < distanceOrder.length && paths[distanceOrder[distanceCursor]] == index){
+            Double measured;
+            synchronized(distances){
+                measured = distances.get(path);
+            }
+            // Only measured here if the path was built before the list was given to the sequence
+            pathDistance = measured != null ? measured : measureDistance(path, pathTime, sample);
+        }
+
+        // Markers at the very start run before the first sample
+        update(0, null);
+    }
+
+    /**
+     * Measure the distance the wheels travel along a path by integrating its commanded speed
+     * @param path the Path to measure
+     * @param executeTime the time the path takes
+     * @param sample the command to sample the path into
+     * @return the distance (m)
+     */
+    private static double measureDistance(Path path, double executeTime, WheelCommand sample){
+        if(executeTime <= 0)
+            return 0;
+        // Midpoint samples stay short of the execute time, so measuring never completes the path
+        double dt = executeTime/DISTANCE_SAMPLES;
+        double distance = 0;
+        for(int k=0;k<DISTANCE_SAMPLES;k++){
+            path.sample((k+0.5)*dt, sample);
+            distance += speed(sample)*dt;
+        }
+        return distance;
+    }
+
+    /**
+     * Get the speed the wheels travel at, averaged over both sides so turning in place counts as distance
+     * @param command the commanded velocities
+     * @return the speed (m/s)
+     */
+    private static double speed(WheelCommand command){
+        return (Math.abs(command.getLeftVelocity()) + Math.abs(command.getRightVelocity()))/2;
+    }
+
+    /**
+     * Run every marker of the current path that is now due, called by the follower every cycle.
+     * Distance is integrated from what the path commands, not from what the wheels measure.
+     * @param time the time into the current path (s)
+     * @param command what the path commands at that time, or null if nothing has been commanded yet
+     * Postcondition: every marker at or before this point of the path has been handed to the executor
+     *                or is waiting for room in it
+     */
+    final synchronized void update(double time, WheelCommand command){
+        handOff();
+        if(command != null)
+            travelled += speed(command)*(time-lastTime);
+        lastTime = time;
+
+        while(timeCursor < timeOrder.length){
+            int i = timeOrder[timeCursor];
+            if(paths[i] != currentPath || fractions[i]*pathTime > time)
+                break;
+            timeCursor++;
+            dispatch(i);
+        }
+        while(distanceCursor < distanceOrder.length){
+            int i = distanceOrder[distanceCursor];
+            if(paths[i] != currentPath || fractions[i]*pathDistance > travelled)
+                break;
+            distanceCursor++;
+            dispatch(i);
+        }
+    }
+
+    /**
+     * Run every marker of the current path that has not run yet, called by the follower once the
+     * path has completed so that markers at the very end are never lost to rounding
+     */
+    final synchronized void finishPath(){
+        handOff();
+        while(timeCursor < timeOrder.length && paths[timeOrder[timeCursor]] == currentPath)
+            dispatch(timeOrder[timeCursor++]);
+        while(distanceCursor < distanceOrder.length && paths[distanceOrder[distanceCursor]] == currentPath)
+            dispatch(distanceOrder[distanceCursor++]);
+    }
+
+    /**
+     * Hand a due marker to the executor without blocking, or leave it waiting behind the markers
+     * that became due before it
+     * @param i the index of the marker
+     */
+    private void dispatch(int i){
+        if(waitingCount == 0 && executor.tryExecute(markers[i]))
+            return;
+        waiting[(waitingHead + waitingCount) % waiting.length] = i;
+        waitingCount++;
+    }
+
+    /**
+     * Hand waiting markers to the executor, oldest first, for as long as it has room
+     */
+    private void handOff(){
+        while(waitingCount > 0 && executor.tryExecute(markers[waiting[waitingHead]])){
+            waitingHead = (waitingHead + 1) % waiting.length;
+            waitingCount--;
+        }
+    }
+
+    /**
+     * Get the amount of due markers waiting for room in the executor
+     * @return the amount of waiting markers
+     */
+    public final synchronized int getWaitingCount(){
+        return waitingCount;
+    }
+
+    /**
+     * Get the amount of markers that had to wait because every worker was busy
+     * @return the amount of markers that waited for a worker
+     */
+    public final synchronized int getSaturatedCount(){
+        return executor == null ? 0 : executor.getSaturatedCount();
+    }
+
+    /**
+     * Hand every marker still waiting for room in the executor to it, then wait for them to start.
+     * Called once the last path has been followed, off the control loop, since no later cycle will.
+     * @param timeout the longest time to wait (ms)
+     * @return true if every due marker has been started
+     */
+    public final synchronized boolean finish(long timeout){
+        long deadline = System.nanoTime() + timeout*1000000;
+        while(waitingCount > 0){
+            long remaining = (deadline - System.nanoTime())/1000000;
+            if(remaining <= 0 || !executor.execute(markers[waiting[waitingHead]], remaining))
+                return false;
+            waitingHead = (waitingHead + 1) % waiting.length;
+            waitingCount--;
+        }
+        // Markers dropped from the queue by stop() would never run either
+        while(executor != null && executor.getQueuedCount() > 0){
+            if(System.nanoTime() >= deadline)
+                return false;
+            try{
+                Thread.sleep(1);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop every marker: markers that have not run, including waiting ones, are dropped and running
+     * ones are interrupted. A list that created its own pool runs its markers on a new one if it is
+     * followed again; a pool given to the list stays shut down.
+     * @return the amount of due markers dropped without running
+     * Postcondition: no more markers run until the list is followed again
+     */
+    public final synchronized int stop(){
+        int dropped = waitingCount + (executor == null ? 0 : executor.shutdown());
+        waitingHead = 0;
+        waitingCount = 0;
+        return dropped;
+    }
+}
@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * RAMSETE nonlinear pose tracking controller for differential drivetrains.
+ * Given where the robot should be and how it should be moving, and where it actually is, it
+ * returns the forward and turning velocity that converge the robot onto the reference. With no
+ * error it returns the reference velocities unchanged.
+ */
+public class RamseteController {
+    /**
+     * Aggressiveness of the correction, greater than zero (rad^2/m^2)
+     */
+    private final double b;
+
+    /**
+     * Damping of the correction, between zero and one
+     */
+    private final double zeta;
+
+    /**
+     * Forward velocity of the last calculation (m/s)
+     */
+    private double velocity;
+
+    /**
+     * Turning velocity of the last calculation (rad/s)
+     */
+    private double angularVelocity;
+
+    /**
+     * Default constructor - uses the RAMSETE coefficients in Robot.
+     */
+    public RamseteController(){
+        this(Robot.ramseteB, Robot.ramseteZeta);
+    }
+
+    /**
+     * Construct a RAMSETE controller
+     * @param b aggressiveness, greater than zero (2 is a common starting point)
+     * @param zeta damping, between zero and one (0.7 is a common starting point)
+     */
+    public RamseteController(double b, double zeta){
+        if(b <= 0 || zeta <= 0 || zeta >= 1)
+            throw new RuntimeException("b must be greater than zero and zeta between zero and one in RamseteController.RamseteController(...)!");
+        this.b = b;
+        this.zeta = zeta;
+    }
+
+    /**
+     * Calculate the velocities that track the reference. Read them with getVelocity() and
+     * getAngularVelocity().
+     * @param pose where the robot is
+     * @param referenceX where the robot should be along x (m)
+     * @param referenceY where the robot should be along y (m)
+     * @param referenceHeading the heading the robot should have (rad)
+     * @param referenceVelocity the forward velocity the robot should have (m/s)
+     * @param referenceAngularVelocity the turning velocity the robot should have (rad/s)
+     */
+    public final void calculate(Pose pose, double referenceX, double referenceY, double referenceHeading,
+                                double referenceVelocity, double referenceAngularVelocity){
+        // Error in the robot's frame
+        double cos = Math.cos(pose.getHeading());
+        double sin = Math.sin(pose.getHeading());
+        double dx = referenceX - pose.getX();
+        double dy = referenceY - pose.getY();
+        double errorX = cos*dx + sin*dy;
+        double errorY = -sin*dx + cos*dy;
+        double errorHeading = wrapAngle(referenceHeading - pose.getHeading());
+
+        double k = 2*zeta*Math.sqrt(referenceAngularVelocity*referenceAngularVelocity + b*referenceVelocity*referenceVelocity);
+
+        velocity = referenceVelocity*Math.cos(errorHeading) + k*errorX;
+        angularVelocity = referenceAngularVelocity + k*errorHeading + b*referenceVelocity*sinc(errorHeading)*errorY;
+    }
+
+    /**
+     * Get the forward velocity of the last calculation
+     * @return the forward velocity (m/s)
+     */
+    public final double getVelocity(){
+        return velocity;
+    }
+
+    /**
+     * Get the turning velocity of the last calculation
+     * @return the turning velocity, counterclockwise positive (rad/s)
+     */
+    public final double getAngularVelocity(){
+        return angularVelocity;
+    }
+
+    /**
+     * sin(x)/x, continuous at zero
+     * @param x the angle (rad)
+     * @return sin(x)/x
+     */
+    private static double sinc(double x){
+        if(Math.abs(x) < 1E-9)
+            return 1 - x*x/6;
+        return Math.sin(x)/x;
+    }
+
+    /**
+     * Wrap an angle into [-pi, pi)
+     * @param angle the angle (rad)
+     * @return the equivalent angle closest to zero
+     */
+    static double wrapAngle(double angle){
+        return angle - 2*Math.PI*Math.floor((angle + Math.PI)/(2*Math.PI));
+    }
+}
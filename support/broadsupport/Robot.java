@@ -12,6 +12,8 @@ import org.openftc.easyopencv.OpenCvCamera;
 import org.openftc.easyopencv.OpenCvCameraFactory;
 import org.openftc.easyopencv.OpenCvCameraRotation;
 
+import java.io.File;
+
 abstract public class Robot extends BotContainer{
     // These variables are protected so autonomous programs can use them easier - assign these to what you're using on your drivetrain
     /**
@@ -19,6 +21,11 @@ abstract public class Robot extends BotContainer{
      */
     protected DcMotorEx leftFront, leftBack, rightFront, rightBack;
 
+    /**
+     * Assign (and start) a localizer in initMotors() to correct the robot's pose while following, leave null to only correct wheel velocities
+     */
+    protected Localizer localizer = null;
+
     /**
      * pipeline here is of type TSEDetectionPipeline, replace this with whatever pipeline you've made!
      */
@@ -41,6 +48,36 @@ abstract public class Robot extends BotContainer{
      */
     private final double trackWidth = 0.295;
 
+    /**
+     * compileTimestep is the time between samples when paths are compiled into velocity tables, set to zero to follow the analytic paths
+     */
+    private final double compileTimestep = 0.005;
+
+    /**
+     * buildParallelism is how many paths are built at the same time during initialization, the Control Hub has four cores
+     */
+    private final int buildParallelism = 4;
+
+    /**
+     * trajectoryCacheDirectory is where compiled paths are kept between runs so unchanged autos skip compiling, set to null to disable
+     */
+    private final String trajectoryCacheDirectory = "/sdcard/FIRST/coyote/trajectories";
+
+    /**
+     * lookaheadBuild builds the next unbuilt path in the background while following, and starts building a path given to replacePath(...) as soon as it is replaced
+     */
+    private final boolean lookaheadBuild = true;
+
+    /**
+     * flightRecorderDirectory is where every cycle's commanded and measured wheel velocities are recorded during auto, set to null to disable
+     */
+    private final String flightRecorderDirectory = "/sdcard/FIRST/coyote/flights";
+
+    /**
+     * flightRecorderMaxFiles is how many recordings are kept in flightRecorderDirectory, the oldest are deleted first
+     */
+    private final int flightRecorderMaxFiles = 20;
+
 
 
 
@@ -51,12 +88,47 @@ abstract public class Robot extends BotContainer{
     public final static double kI = 0.5;
     public final static double kD = 0.3;
 
+    // PIDF Controller Coefficients used by the path followers, in rad/s and seconds
+    public final static double pidfP = 0.4;
+    public final static double pidfI = 3.125;
+    public final static double pidfD = 0;
+    public final static double pidfDerivativeFilter = 0.02;
+    public final static double pidfIntegralLimit = 5;
+
+    // RAMSETE Coefficients, used when a localizer is assigned
+    public final static double ramseteB = 2;
+    public final static double ramseteZeta = 0.7;
+
+    // Marker Execution: most worker threads, markers that may wait for a worker, and virtual threads where supported
+    // (pools made for a known amount of markers use a worker per marker up to markerThreads)
+    public final static int markerThreads = 8;
+    public final static int markerQueueCapacity = 16;
+    public final static boolean markerVirtualThreads = false;
+
+    // Differential swerve pods: motor radians per wheel radian through the pod's gears, replace with your pods' ratio
+    // (0.1787 keeps the original 6.803/sqrt(2) motor radians per meter with 0.03715 m wheels)
+    public final static double diffyGearRatio = 0.1787;
+
+    // Feedforward Coefficients
+    public final static double kS = 0;
+    public final static double kV = 1;
+    public final static double kA = 0;
+
     // Kalman Filter Coefficients
     public final static double R = 18;
     public final static double Q = 6;
     public final static double C = 2.7;
     public final static double B = 10;
     public final static double A = 1.5;
+    // Filter with precomputed gains instead of propagating the covariance every sample
+    public final static boolean kalmanSteadyState = true;
+    // Filter the followers' wheel velocities with a model of a velocity that carries over between samples and is
+    // measured directly by the encoder, so the estimate is unbiased, instead of with the Kalman coefficients above.
+    // Retune pidfP and pidfI on the robot when turning this on
+    public final static boolean velocityFilterUnbiased = false;
+    // Process and measurement noise of that filter
+    public final static double velocityFilterR = 1;
+    public final static double velocityFilterQ = 2;
 
      /***************************************/
 
@@ -69,8 +141,15 @@ abstract public class Robot extends BotContainer{
     protected final void initialize(){
         createPathSequence();
 
+        // Every path is built (or the build error thrown) before the init loop starts
         if(getPathSequence() != null)
-            getPathSequence().buildAll();
+            getPathSequence().buildAllParallel(buildParallelism, new BuildProgress() {
+                @Override
+                public void update(int built, int total) {
+                    telemetry.addData("Building paths", built + "/" + total);
+                    telemetry.update();
+                }
+            });
 
         do{
             // In initialization - add your code here
@@ -95,6 +174,20 @@ abstract public class Robot extends BotContainer{
                     leftFront, leftBack, rightFront, rightBack, // REPLACE WITH YOUR MOTOR VARIABLES
                     wheelR);                                    // **DO NOT REPLACE
 
+            // Reuse the paths compiled in previous runs
+            if(trajectoryCacheDirectory != null)
+                sequenceToFollow.setTrajectoryCache(new TrajectoryCache(new File(trajectoryCacheDirectory)));
+
+            sequenceToFollow.setLookahead(lookaheadBuild);
+
+            // Record the follower in a new file each run, sized for the drivetrain's motors when following starts
+            if(flightRecorderDirectory != null)
+                sequenceToFollow.setFlightRecorder(new FlightRecorder(new File(flightRecorderDirectory), flightRecorderMaxFiles));
+
+            // Track the pose with RAMSETE if the robot knows where it is
+            if(localizer != null)
+                sequenceToFollow.setPoseTracker(new PoseTracker(localizer, new RamseteController()));
+
             // Add the path sequence to the robot
             setPathSequence(sequenceToFollow);
         }
@@ -164,6 +257,7 @@ abstract public class Robot extends BotContainer{
         // Initialize the drivetrain symmetry
         Path.setSymmetryState(symmetryState);
         Path.setTrackWidth(trackWidth);
+        Path.setCompileTimestep(compileTimestep);
 
         // Initialize motors and camera
         initMotors();
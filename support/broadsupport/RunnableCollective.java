@@ -1,14 +1,22 @@
 package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 
-import com.qualcomm.robotcore.util.ElapsedTime;
-
-import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A class for running the markers on different threads at the same time to run each marker.
- * You can create as many threads as you want!
+ * You can create as many markers as you want!
+ *
+ * The markers are handed out in order by a MarkerList.Cursor, and the scheduling thread sleeps
+ * until the next one is due instead of polling every marker, so it uses next to no CPU while the
+ * control loop runs. It wakes slightly early and yields for the last moment to hand each marker
+ * to a MarkerExecutor on time.
  */
 public class RunnableCollective implements Runnable{
+    /**
+     * The scheduling thread sleeps until this long before a marker is due, then yields until it is (ns)
+     */
+    private static final long SPIN_NANOS = 200000;
+
     /**
      * Create a MarkerList - essentially an object containing the Interface InsertMarkers
      * which are realized with a lambda expression
@@ -19,7 +27,7 @@ public class RunnableCollective implements Runnable{
     /**
      * Signals the program to shut off the markers
      */
-    private boolean stopMarkers;
+    private volatile boolean stopMarkers;
 
     /**
      * Thread running all the other markers
@@ -27,29 +35,40 @@ public class RunnableCollective implements Runnable{
     private Thread mainThread;
 
     /**
-     * Static array containing all the other threads running the other markers
+     * Reusable pool the markers run on
      */
-    private Thread[] childThreadList;
+    private final MarkerExecutor executor;
 
     /**
-     * State array preventing repeated running of threads
+     * Hands out the markers in the order they run
      */
-    private boolean[] threadStates;
+    private final MarkerList.Cursor cursor;
 
     /**
-     * Instantiate the object with a markerList to reference, used in the PathSequence family
+     * Instantiate the object with a markerList to reference, used in the PathSequence family.
+     * The markers run on a pool with a worker per marker, up to Robot.markerThreads, so a marker
+     * that runs for the rest of the period does not hold up the others while there are workers left.
      * @param markerList is the collection of markers and the time they should execute at
      */
     public RunnableCollective(MarkerList markerList){
-        if(markerList == null)
-            throw new RuntimeException("markerList in RunnableCollectiveArray.RunnableCollectiveArray(...) must not be null!");
+        this(markerList, markerList == null ? null : new MarkerExecutor(markerList.getMarkers().length));
+    }
+
+    /**
+     * Instantiate the object with a markerList to reference and the pool to run the markers on
+     * @param markerList is the collection of markers and the time they should execute at
+     * @param executor the pool to run the markers on, shut down when the markers are stopped
+     */
+    public RunnableCollective(MarkerList markerList, MarkerExecutor executor){
+        if(markerList == null || executor == null)
+            throw new RuntimeException("markerList and executor in RunnableCollective.RunnableCollective(...) must not be null!");
 
         this.markerList = markerList;
-        childThreadList = new Thread[markerList.getMarkers().length];
+        this.executor = executor;
         stopMarkers = false;
 
-        threadStates = new boolean[markerList.getMarkers().length];
-        Arrays.fill(threadStates, false);
+        // Sorted by the list once, so the scheduler only ever looks at the next marker due
+        cursor = markerList.cursor();
     }
 
     /**
@@ -59,112 +78,83 @@ public class RunnableCollective implements Runnable{
      */
     public final void activateMarkers(){
         if(markerList == null)
-            throw new RuntimeException("markerList in RunnableCollectiveArray.activateMarkers() must not be null!");
+            throw new RuntimeException("markerList in RunnableCollective.activateMarkers() must not be null!");
 
-        mainThread = new Thread(this);
+        mainThread = new Thread(this, "markers");
         mainThread.start();
     }
 
 
     /**
-     * Set the stop condition and interrupts threads
-     * Precondition:  childThreadList has been instantiated and is not null
+     * Set the stop condition, drop markers that have not started and interrupt the running ones
+     * Precondition:  markerList has been instantiated and is not null
      * Postcondition: the markers have stopped running
      */
     public final void setStopMarkers() {
         if(markerList == null)
-            throw new RuntimeException("markerList in RunnableCollectiveArray.setStopMarkers() must not be null!");
-        if(childThreadList == null)
-            throw new RuntimeException("childThreadList in RunnableCollectiveArray.setStopMarkers() must not be null!");
+            throw new RuntimeException("markerList in RunnableCollective.setStopMarkers() must not be null!");
 
-        // Interrupt any child thread currently being used
+        // Wake the parent thread so it sees the stop
         stopMarkers = true;
-        for (Thread thread : childThreadList)
-            if (thread != null && thread.isAlive()) {
-                thread.interrupt();
-            }
+        if(mainThread != null)
+            mainThread.interrupt();
+
+        // Interrupt any marker currently running
+        executor.shutdown();
+    }
 
-        // Interrupt the parent thread
-        mainThread.interrupt();
+    /**
+     * Get the amount of markers that had to wait because every worker was busy
+     * @return the amount of markers that waited for a worker
+     */
+    public final int getSaturatedCount(){
+        return executor.getSaturatedCount();
     }
 
     /**
      * The broad run method - since the RunnableCollective itself is in a thread it needs to have
-     * a run method, which is started whenever the thread is. It instantiates the new threads
-     * and starts them as the time becomes right.
-     * Precondition:  childThreadList and markerList has been instantiated and are not null
-     * Postcondition: each child thread has been started and executed according to the interface
+     * a run method, which is started whenever the thread is. It sleeps until each marker is due and
+     * then hands it to the executor.
+     * Precondition:  markerList has been instantiated and is not null
+     * Postcondition: each marker has been started according to the interface
      * realization with lambda in the runner program
      */
     @Override
     public final void run(){
         if(markerList == null)
-            throw new RuntimeException("markerList in RunnableCollectiveArray.run() must not be null!");
-        if(childThreadList == null)
-            throw new RuntimeException("childThreadList in RunnableCollectiveArray.setStopMarkers() must not be null!");
-
-//
-        // Declare the ElapsedTime object here to reduce lag after runMarkers is true
-        ElapsedTime markerTime = new ElapsedTime();
-
-        // Reset the time the markers run off of (should be whenever start button is pressed)
-        markerTime.reset();
-
-        // Create each new thread in the array
-        for(int i=0;i< childThreadList.length;i++)
-            childThreadList[i] = new Thread(this.new ChildThread(i));
-
-        // Look and start the threads if the time is right and they have not been started before
-        while(!stopMarkers)
-            for(int i=0;i<childThreadList.length;i++){
-                // Can only start the thread if the thread has no tbeen started already,
-                // it is past the appropriate time, and the thread is marked to be activated
-                // in the threadStates array
-                if(markerList.getTime(i) < markerTime.milliseconds()/1000 && !threadStates[i] && !childThreadList[i].isAlive()){
-                    childThreadList[i].start();
-                    setThreadComplete(i);
-                }
-            }
-    }
+            throw new RuntimeException("markerList in RunnableCollective.run() must not be null!");
 
-    /**
-     * Set a thread to a complete status - don't run it multiple times
-     * @param i the index at which to set a thread to a complete status
-     */
-    private void setThreadComplete(int i){
-        if(i < 0 || i >= markerList.getMarkers().length)
-            throw new RuntimeException("i must be a valid index in RunnableCollective.setThreadComplete(...)!");
+        // The time the markers run off of (should be whenever start button is pressed)
+        long start = System.nanoTime();
+
+        while(cursor.hasNext()){
+            long deadline = start + (long)(Math.max(0, cursor.peekTime())*1E9);
+            if(!waitUntil(deadline))
+                return;
 
-        threadStates[i] = true;
-        childThreadList[i].interrupt();
+            if(!executor.execute(cursor.next()))
+                return;
+        }
     }
 
     /**
-     * Private thread object - correlates to a specific index of the markerList.
+     * Sleep until a deadline, waking a little early and yielding for the rest to start on time
+     * @param deadline the System.nanoTime() to wait for
+     * @return false if the markers were stopped while waiting
      */
-    private final class ChildThread implements Runnable{
-        /**
-         * Which thread to run
-         */
-        private final int index;
-
-
-        /**
-         * Assign an index to this thread
-         * @param index the index of which thread to execute
-         */
-        public ChildThread(int index){
-            this.index = index;
-        }
-
-        /**
-         * Method to execute the InsertMarker
-         *Precondition:  markerList is not null, and index has been assigned
-         *Postcondition: the marker at this spot has started
-         */
-        @Override
-        public void run() {
-            markerList.getInsertMarker(index).execute();
+    private boolean waitUntil(long deadline){
+        while(!stopMarkers){
+            long remaining = deadline - System.nanoTime();
+            if(remaining <= 0)
+                return true;
+            if(remaining > SPIN_NANOS){
+                LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+                // Interrupts only signal a stop, clear it so parking keeps working
+                Thread.interrupted();
+            }
+            else
+                Thread.yield();
         }
+        return false;
     }
 }
@@ -0,0 +1,144 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Immutable table of the times at which each segment of a piecewise path ends.
+ * Segments are looked up with a binary search, or with a Cursor when the lookup times
+ * only increase (as they do while a path is being followed).
+ */
+public class SegmentTable {
+    /**
+     * Maximum amount of segments a cursor steps over before it falls back to a binary search
+     */
+    private static final int MAX_CURSOR_STEPS = 8;
+
+    /**
+     * Time at which each segment ends, non-decreasing
+     */
+    private final double[] endTimes;
+
+    /**
+     * Create a segment table.
+     * @param endTimes the time at which each segment ends, copied into the table
+     * Precondition:  endTimes is not null, not empty and non-decreasing
+     */
+    public SegmentTable(double[] endTimes){
+        if(endTimes == null || endTimes.length == 0)
+            throw new RuntimeException("endTimes in SegmentTable.SegmentTable(...) must not be null or empty!");
+        for(int i=1;i<endTimes.length;i++)
+            if(endTimes[i] < endTimes[i-1])
+                throw new RuntimeException("endTimes in SegmentTable.SegmentTable(...) must be non-decreasing!");
+        this.endTimes = endTimes.clone();
+    }
+
+    /**
+     * Find the segment executing at a given time with a binary search.
+     * @param currentTime the time into the path
+     * @return the index of the first segment ending after currentTime, or -1 if every segment has ended
+     */
+    public final int find(double currentTime){
+        int low = 0;
+        int high = endTimes.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(currentTime < endTimes[mid])
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        return low == endTimes.length ? -1 : low;
+    }
+
+    /**
+     * Create a new cursor at the first segment.
+     * @return the cursor
+     */
+    public final Cursor cursor(){
+        return new Cursor();
+    }
+
+    /**
+     * Get the amount of segments
+     * @return the amount of segments
+     */
+    public final int size(){
+        return endTimes.length;
+    }
+
+    /**
+     * Get the time at which a segment ends
+     * @param i the index of the segment
+     * @return the end time of segment i
+     */
+    public final double getEndTime(int i){
+        if(i < 0 || i >= endTimes.length)
+            throw new RuntimeException("i must be a valid index in SegmentTable.getEndTime(...)!");
+        return endTimes[i];
+    }
+
+    /**
+     * Get the time at which the last segment ends
+     * @return the total time of the table
+     */
+    public final double getTotalTime(){
+        return endTimes[endTimes.length-1];
+    }
+
+    /**
+     * Forward-only position in a SegmentTable. Lookups at increasing times cost O(1) amortized;
+     * going back in time or jumping far ahead falls back to a binary search.
+     * A cursor is not thread safe, each reader should have its own.
+     */
+    public final class Cursor {
+        /**
+         * Index of the current segment, equal to the table size once every segment has ended
+         */
+        private int index = 0;
+
+        /**
+         * Find the segment executing at a given time, starting from the last segment found.
+         * @param currentTime the time into the path
+         * @return the index of the first segment ending after currentTime, or -1 if every segment has ended
+         */
+        public int seek(double currentTime){
+            if(index > 0 && currentTime < endTimes[index-1]){
+                index = indexOf(find(currentTime));
+                return toSegment(index);
+            }
+
+            int steps = 0;
+            while(index < endTimes.length && currentTime >= endTimes[index]){
+                if(++steps > MAX_CURSOR_STEPS){
+                    index = indexOf(find(currentTime));
+                    break;
+                }
+                index++;
+            }
+            return toSegment(index);
+        }
+
+        /**
+         * Move the cursor back to the first segment
+         */
+        public void reset(){
+            index = 0;
+        }
+
+        /**
+         * Convert a segment returned by find(...) into a cursor index
+         * @param segment the segment, or -1
+         * @return the cursor index
+         */
+        private int indexOf(int segment){
+            return segment == -1 ? endTimes.length : segment;
+        }
+
+        /**
+         * Convert a cursor index into the segment returned to the caller
+         * @param index the cursor index
+         * @return the segment, or -1 if every segment has ended
+         */
+        private int toSegment(int index){
+            return index == endTimes.length ? -1 : index;
+        }
+    }
+}
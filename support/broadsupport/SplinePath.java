@@ -3,8 +3,6 @@ package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
 import org.firstinspires.ftc.teamcode.auto.support.enumerations.PathType;
 import org.firstinspires.ftc.teamcode.auto.support.enumerations.Direction;
 
-import java.util.ArrayList;
-
 /**
  * Translates a series of circle radii/arc lengths into motor power values for a 2 wheeled robot.
  * created by
@@ -41,9 +39,29 @@ public class SplinePath extends Path {
     private double additionalPathTwoTime;
 
     /**
-     *  Times at which to execute each part of the spline.
+     * Maximum acceleration when planning velocities, zero to use the fixed ramps of accelerationTime.
+     */
+    private double maxAcceleration = 0;
+
+    /**
+     * Maximum lateral (centripetal) acceleration when planning velocities.
+     */
+    private double maxLateralAcceleration = 0;
+
+    /**
+     * Planned velocity of each arc, null unless velocity planning is enabled and the spline is built.
+     */
+    private VelocityPlan plan;
+
+    /**
+     *  Times at which each arc of the spline ends, null until the spline is built.
+     */
+    private SegmentTable times;
+
+    /**
+     *  Cursor into times, the lookup time only increases while the spline is followed.
      */
-    private ArrayList<Double> times;
+    private SegmentTable.Cursor arcCursor;
 
     // track width is how far the wheels are apart, r is the radius of each of the turns, v is an ArrayList of static arrays of the velocities.
 
@@ -63,10 +81,6 @@ public class SplinePath extends Path {
         this.accelerationTime = accelerationTime;
         additionalpathonetime = 0;
         additionalPathTwoTime = 0;
-
-        times = new ArrayList<>();
-
-
     }
     /**
      * Constructor for SplinePath with reversed boolean.
@@ -86,31 +100,92 @@ public class SplinePath extends Path {
         additionalpathonetime = 0;
         additionalPathTwoTime = 0;
 
-        times = new ArrayList<>();
-
         if(reversed)
             setMoveState(Direction.REVERSE);
     }
 
     /**
-     * Compute the various aspects of the spline like ramp-up and ramp-down appending times, the times ArrayList, and ArcLengths list.
-     * Precondition:  arcLengths and times is not null and has been instantiated
+     * Plan the velocity along the spline instead of driving every arc at the same velocity.
+     * Each arc is limited to the velocity at which its lateral acceleration stays below
+     * maxLateralAcceleration and its outer wheel stays below the spline velocity, then the fastest
+     * profile that respects those limits and maxAcceleration is planned through the whole spline.
+     * Gentle arcs are driven faster and tight arcs slower. The interior arc lengths are scaled by 2*pi
+     * just like when velocity planning is off.
+     * @param maxAcceleration the maximum linear acceleration and deceleration (m/s^2)
+     * @param maxLateralAcceleration the maximum lateral acceleration (m/s^2)
+     * Precondition:  both accelerations are greater than zero
+     * Postcondition: the path must be built again
+     */
+    public final void setVelocityPlanning(double maxAcceleration, double maxLateralAcceleration){
+        if(maxAcceleration <= 0 || maxLateralAcceleration <= 0)
+            throw new RuntimeException("Both accelerations must be greater than zero in SplinePath.setVelocityPlanning(...)");
+        this.maxAcceleration = maxAcceleration;
+        this.maxLateralAcceleration = maxLateralAcceleration;
+        setBuilt(false);
+    }
+
+    /**
+     * Plan the velocity of each arc from its radius and length.
+     * @return the velocity plan
+     * Precondition:  radii and arcLengths are the same length and no radius is zero
+     */
+    private VelocityPlan planVelocities(){
+        if(radii == null || radii.length != arcLengths.length)
+            throw new RuntimeException("radii and arcLengths must be the same length in SplinePath.planVelocities()");
+
+        double[] distances = new double[arcLengths.length];
+        double[] limits = new double[arcLengths.length];
+        for(int i=0;i<arcLengths.length;i++){
+            distances[i] = Math.abs(arcLengths[i]);
+            if(i > 0 && i < arcLengths.length-1)
+                distances[i] *= 2*3.14159265;
+
+            double radius = Math.abs(radii[i]);
+            if(radius == 0)
+                throw new RuntimeException("Radii must not be zero when planning velocities in SplinePath.planVelocities()");
+
+            // Lateral acceleration v^2/r and the outer wheel's velocity v*(1+trackWidth/2r) both limit the arc
+            limits[i] = velocity;
+            if(!Double.isInfinite(radius)){
+                limits[i] = Math.min(limits[i], Math.sqrt(maxLateralAcceleration*radius));
+                limits[i] = Math.min(limits[i], velocity/(1 + Path.getTrackWidth()/(2*radius)));
+            }
+        }
+        return new VelocityPlan(distances, limits, maxAcceleration);
+    }
+
+    /**
+     * Compute the various aspects of the spline like ramp-up and ramp-down appending times, the times table, and ArcLengths list.
+     * Precondition:  arcLengths is not null and has at least two arcs
      * Postcondition: times have been successfully computed and this path has been built,
      */
     @Override
     public final void build(){
-        if(arcLengths == null || times == null )
-            throw new RuntimeException("ArcLengths and times must be not null in SplinePath.build()");
+        if(arcLengths == null || arcLengths.length < 2)
+            throw new RuntimeException("ArcLengths must be not null and hold at least two arcs in SplinePath.build()");
+
+        if(maxAcceleration > 0){
+            plan = planVelocities();
+            times = new SegmentTable(plan.getEndTimes());
+            arcCursor = times.cursor();
+            setBuilt(true);
+            return;
+        }
+        plan = null;
 
-        for(int i=1;i<arcLengths.length-1;i++)
-            arcLengths[i]*=(2*3.14159265);
         additionalpathonetime = (3*Math.abs(arcLengths[0])-2*velocity*accelerationTime)/(3*velocity);
         additionalPathTwoTime = (Math.abs(arcLengths[arcLengths.length-1])-((velocity*accelerationTime)/3))/velocity;
         System.out.println("TpA, TpD: "+ additionalpathonetime +" "+ additionalPathTwoTime);
-        times.add(accelerationTime+ additionalpathonetime);
+
+        double[] endTimes = new double[arcLengths.length];
+        endTimes[0] = accelerationTime+ additionalpathonetime;
+        // Interior arc lengths are scaled here rather than in place so that building again gives the same spline
         for(int i=1;i<arcLengths.length-1;i++)
-            times.add(times.get(times.size()-1)+Math.abs(arcLengths[i])*velocity);
-        times.add(times.get(times.size()-1)+accelerationTime+ additionalPathTwoTime);
+            endTimes[i] = endTimes[i-1]+Math.abs(arcLengths[i]*(2*3.14159265))*velocity;
+        endTimes[endTimes.length-1] = endTimes[endTimes.length-2]+accelerationTime+ additionalPathTwoTime;
+
+        times = new SegmentTable(endTimes);
+        arcCursor = times.cursor();
         setBuilt(true);
     }
 
@@ -125,7 +200,7 @@ public class SplinePath extends Path {
         if(times == null)
             throw new RuntimeException("Times must not be equal to null in SplinePath.getExecuteTime()");
 
-        return times.get(times.size()-1);
+        return times.getTotalTime();
     }
 
     /**
@@ -139,10 +214,7 @@ public class SplinePath extends Path {
         if(times == null || currentTime < 0)
             throw new RuntimeException("Times must not be equal to null in SplinePath.getArc() and currentTime must be greater than zero");
 
-        for(int i=0;i<times.size();i++)
-            if(currentTime < times.get(i))
-                return i;
-        return -1;
+        return arcCursor.seek(currentTime);
     }
     
     /**
@@ -156,10 +228,22 @@ public class SplinePath extends Path {
         if(arcLengths == null || times == null || currentTime < 0)
             throw new RuntimeException("currentTime must be greater than or equal to zero and arcLengths and times is not null in SplinePath.getVelocity()");
 
-        int arc = getArc(currentTime);
+        return getVelocity(currentTime, getArc(currentTime));
+    }
+
+    /**
+     * Get the linear velocity of the WHOLE robot for an arc that has already been looked up.
+     * @param currentTime is the current time into the spline
+     * @param arc is the arc executing at currentTime
+     * @return the overall robot velocity
+     */
+    private double getVelocity(double currentTime, int arc){
         if(arc == -1)
             return 0;
 
+        if(plan != null)
+            return plan.getVelocity(arc, currentTime-plan.getStartTime(arc));
+
         if(arc > 0 && arc < arcLengths.length-1)
             return velocity;
         else if(arc == 0){
@@ -168,9 +252,9 @@ public class SplinePath extends Path {
             return velocity;
         }
         else {
-            if(currentTime < times.get(times.size()-2)+ additionalPathTwoTime)
+            if(currentTime < times.getEndTime(times.size()-2)+ additionalPathTwoTime)
                 return velocity;
-            return velocity-velocity*Math.sqrt((currentTime-times.get(times.size()-2)- additionalPathTwoTime)/accelerationTime);
+            return velocity-velocity*Math.sqrt((currentTime-times.getEndTime(times.size()-2)- additionalPathTwoTime)/accelerationTime);
         }
     }
     
@@ -188,14 +272,15 @@ public class SplinePath extends Path {
             throw new RuntimeException("currentTime must be greater than or equal to zero and arcLengths and times is not null in SplinePath.getLeftVelocity()");
 
         // Termination condition
-        if (getArc(currentTime) == -1) {
+        int arc = getArc(currentTime);
+        if (arc == -1) {
             this.setCompleted(true);
             return 0;
         }
 
-        double rawVelocity = getVelocity(currentTime);
+        double rawVelocity = getVelocity(currentTime, arc);
 
-        double sideVelocity = rawVelocity - (rawVelocity*Path.getTrackWidth()/(2*radii[getArc(currentTime)]));
+        double sideVelocity = rawVelocity - (rawVelocity*Path.getTrackWidth()/(2*radii[arc]));
         return sideVelocity * velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 0);
     }
 
@@ -212,16 +297,61 @@ public class SplinePath extends Path {
             throw new RuntimeException("currentTime must be greater than or equal to zero and arcLengths and times is not null in SplinePath.getRightVelocity()");
 
         // Termination condition
-        if (getArc(currentTime) == -1) {
+        int arc = getArc(currentTime);
+        if (arc == -1) {
             this.setCompleted(true);
             return 0;
         }
 
-        double rawVelocity = getVelocity(currentTime);
+        double rawVelocity = getVelocity(currentTime, arc);
 
-        double sideVelocity = rawVelocity - (rawVelocity*Path.getTrackWidth()/(2*radii[getArc(currentTime)]));
+        double sideVelocity = rawVelocity - (rawVelocity*Path.getTrackWidth()/(2*radii[arc]));
         return sideVelocity * velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 0);
     }
+    /**
+     * Sample both side velocities, looking up the arc and robot velocity only once.
+     * @param currentTime is the current time into the spline.
+     * @param command is the holder to write the velocities to
+     * Precondition:  currentTime is greater than or equal to zero and the path has been built
+     * Postcondition: command holds the same velocities as getLeftVelocity(...) and getRightVelocity(...)
+     */
+    @Override
+    protected void sampleAnalytic(double currentTime, WheelCommand command){
+        if(arcLengths == null || times == null)
+            throw new RuntimeException("arcLengths and times must not be null in SplinePath.sampleAnalytic()");
+
+        // Termination condition
+        int arc = getArc(currentTime);
+        if (arc == -1) {
+            this.setCompleted(true);
+            command.set(0, 0, 0, 0, true);
+            return;
+        }
+
+        double rawVelocity = getVelocity(currentTime, arc);
+
+        double sideVelocity = rawVelocity - (rawVelocity*Path.getTrackWidth()/(2*radii[arc]));
+        sideVelocity *= velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 0);
+        command.set(sideVelocity, sideVelocity, 0, 0, false);
+    }
+
+    /**
+     * Get the parameters the spline was constructed with
+     * @return the velocity, acceleration time, planning limits, radii and arc lengths
+     */
+    @Override
+    protected double[] getParameters(){
+        double[] parameters = new double[5 + radii.length + arcLengths.length];
+        parameters[0] = velocity;
+        parameters[1] = accelerationTime;
+        parameters[2] = maxAcceleration;
+        parameters[3] = maxLateralAcceleration;
+        parameters[4] = radii.length;
+        System.arraycopy(radii, 0, parameters, 5, radii.length);
+        System.arraycopy(arcLengths, 0, parameters, 5 + radii.length, arcLengths.length);
+        return parameters;
+    }
+
     /**
      * Get what type of path this is. Useful for debugging
      * @return The type of path, in this case a spline.
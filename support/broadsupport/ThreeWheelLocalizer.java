@@ -0,0 +1,309 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tracks the pose of the robot from three dead wheels: two parallel wheels on either side of the
+ * robot and one perpendicular wheel measuring strafe, optionally correcting the heading with an
+ * absolute heading sensor such as the IMU.
+ *
+ * Each update integrates the wheel movement since the last one exactly along a constant curvature
+ * arc, so the only integration error comes from the curvature changing within one update. Updates
+ * run on their own fixed rate thread, and the latest pose is published through a sequence lock:
+ * readers never block the localizer thread, and the localizer never waits on a reader.
+ */
+public class ThreeWheelLocalizer implements Localizer, Runnable {
+    // Dead wheel encoders
+    /**
+     * Left parallel wheel, counts up when the robot drives forward
+     */
+    private final DcMotor leftEncoder;
+    /**
+     * Right parallel wheel, counts up when the robot drives forward
+     */
+    private final DcMotor rightEncoder;
+    /**
+     * Perpendicular wheel, counts up when the robot strafes left
+     */
+    private final DcMotor perpendicularEncoder;
+
+    // Geometry
+    /**
+     * Encoder ticks per meter of wheel travel
+     */
+    private final double ticksPerMeter;
+    /**
+     * Distance between the two parallel wheels (m)
+     */
+    private final double trackWidth;
+    /**
+     * Distance the perpendicular wheel is ahead of the center of rotation (m), negative if behind
+     */
+    private final double perpendicularOffset;
+
+    /**
+     * Time between updates (ns)
+     */
+    private final long periodNanos;
+
+    // Absolute heading correction
+    /**
+     * Heading sensor, null to use only the dead wheels
+     */
+    private HeadingSource headingSource = null;
+    /**
+     * Amount of updates between heading sensor reads
+     */
+    private int headingPeriod = 1;
+    /**
+     * Heading sensor reading minus field heading, set whenever the pose is set
+     */
+    private double headingOffset = Double.NaN;
+
+    // State only written by the thread running update()
+    /**
+     * Encoder positions at the last update (ticks)
+     */
+    private int lastLeft, lastRight, lastPerpendicular;
+    /**
+     * Integrated pose, x and y in meters and heading in radians
+     */
+    private final Pose integrated = new Pose();
+    /**
+     * Amount of updates made
+     */
+    private volatile long updates;
+
+    /**
+     * Pose requested by setPose(...), applied by the next update
+     */
+    private volatile boolean poseRequested = false;
+    private volatile double requestedX, requestedY, requestedHeading;
+
+    /**
+     * Sequence lock guarding the published pose, odd while it is being written
+     */
+    private volatile int sequence = 0;
+    /**
+     * Latest published pose, only read under the sequence lock
+     */
+    private volatile double publishedX, publishedY, publishedHeading;
+    private volatile long publishedTime;
+
+    /**
+     * Thread running the updates, null while stopped
+     */
+    private Thread thread = null;
+    /**
+     * Signals the thread to stop
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Create a localizer starting at the origin facing along the x axis.
+     * @param leftEncoder the left parallel dead wheel
+     * @param rightEncoder the right parallel dead wheel
+     * @param perpendicularEncoder the perpendicular dead wheel
+     * @param ticksPerMeter encoder ticks per meter of wheel travel
+     * @param trackWidth the distance between the two parallel wheels (m)
+     * @param perpendicularOffset the distance the perpendicular wheel is ahead of the center of rotation (m)
+     * @param frequency the amount of updates per second when running on its own thread
+     * Precondition:  no encoder is null and ticksPerMeter, trackWidth and frequency are greater than zero
+     */
+    public ThreeWheelLocalizer(DcMotor leftEncoder, DcMotor rightEncoder, DcMotor perpendicularEncoder,
+                               double ticksPerMeter, double trackWidth, double perpendicularOffset, double frequency){
+        if(leftEncoder == null || rightEncoder == null || perpendicularEncoder == null)
+            throw new RuntimeException("Encoders in ThreeWheelLocalizer.ThreeWheelLocalizer(...) must not be null!");
+        if(ticksPerMeter <= 0 || trackWidth <= 0 || frequency <= 0)
+            throw new RuntimeException("ticksPerMeter, trackWidth and frequency in ThreeWheelLocalizer.ThreeWheelLocalizer(...) must be greater than zero!");
+
+        this.leftEncoder = leftEncoder;
+        this.rightEncoder = rightEncoder;
+        this.perpendicularEncoder = perpendicularEncoder;
+        this.ticksPerMeter = ticksPerMeter;
+        this.trackWidth = trackWidth;
+        this.perpendicularOffset = perpendicularOffset;
+        this.periodNanos = (long)(1E9/frequency);
+
+        setPose(0, 0, 0);
+    }
+
+    /**
+     * Correct the heading with an absolute heading sensor.
+     * Reading the IMU takes much longer than reading the encoders, so it can be read less often than
+     * the dead wheels; in between the heading is integrated from the parallel wheels.
+     * @param headingSource the heading sensor, or null to use only the dead wheels
+     * @param headingPeriod the amount of updates between heading sensor reads
+     * Precondition:  the localizer is not running and headingPeriod is greater than zero
+     */
+    public final synchronized void setHeadingSource(HeadingSource headingSource, int headingPeriod){
+        if(thread != null)
+            throw new RuntimeException("The heading source in ThreeWheelLocalizer.setHeadingSource(...) must be set before starting!");
+        if(headingPeriod < 1)
+            throw new RuntimeException("headingPeriod in ThreeWheelLocalizer.setHeadingSource(...) must be greater than zero!");
+        this.headingSource = headingSource;
+        this.headingPeriod = headingPeriod;
+        this.headingOffset = Double.NaN;
+    }
+
+    /**
+     * Move the pose, for example to the starting position on the field. Safe to call while running.
+     * @param x the x position (m)
+     * @param y the y position (m)
+     * @param heading the heading (rad)
+     * Postcondition: the next update continues from this pose
+     */
+    public final void setPose(double x, double y, double heading){
+        requestedX = x;
+        requestedY = y;
+        requestedHeading = heading;
+        poseRequested = true;
+    }
+
+    /**
+     * Start updating on a new thread at the configured frequency.
+     * Postcondition: the pose is being updated until stop() is called
+     */
+    public final synchronized void start(){
+        if(thread != null)
+            return;
+        running = true;
+        thread = new Thread(this, "localizer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stop the update thread and wait for it to finish.
+     * Postcondition: the localizer thread has stopped, the last pose stays readable
+     */
+    public final synchronized void stop(){
+        if(thread == null)
+            return;
+        running = false;
+        LockSupport.unpark(thread);
+        try{
+            thread.join();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Update at a fixed rate until stopped. Late updates are not made up for, so the rate recovers
+     * after a slow encoder read instead of bursting.
+     */
+    @Override
+    public void run(){
+        long next = System.nanoTime();
+        while(running){
+            update();
+
+            next += periodNanos;
+            long wait = next - System.nanoTime();
+            if(wait > 0)
+                LockSupport.parkNanos(this, wait);
+            else
+                next = System.nanoTime();
+        }
+    }
+
+    /**
+     * Read the encoders, integrate the movement since the last update and publish the new pose.
+     * Called by the localizer thread, or directly by a single loop that does not start() it.
+     * Postcondition: the published pose includes every wheel movement so far
+     */
+    public final void update(){
+        int left = leftEncoder.getCurrentPosition();
+        int right = rightEncoder.getCurrentPosition();
+        int perpendicular = perpendicularEncoder.getCurrentPosition();
+
+        if(poseRequested){
+            // Cleared first so a pose set while this one is applied is applied next update
+            poseRequested = false;
+            integrated.set(requestedX, requestedY, requestedHeading, 0);
+            headingOffset = Double.NaN;
+        }
+        else{
+            double leftDistance = (left - lastLeft)/ticksPerMeter;
+            double rightDistance = (right - lastRight)/ticksPerMeter;
+            double perpendicularDistance = (perpendicular - lastPerpendicular)/ticksPerMeter;
+
+            double dTheta = (rightDistance - leftDistance)/trackWidth;
+            double forward = (leftDistance + rightDistance)/2;
+            // The perpendicular wheel also rolls when the robot turns about a point it is offset from
+            double strafe = perpendicularDistance - perpendicularOffset*dTheta;
+
+            integrated.move(forward, strafe, dTheta);
+        }
+        lastLeft = left;
+        lastRight = right;
+        lastPerpendicular = perpendicular;
+
+        // Replace the integrated heading by the sensor's, which does not drift with wheel slip
+        if(headingSource != null && updates % headingPeriod == 0){
+            double sensorHeading = headingSource.getHeading();
+            if(Double.isNaN(headingOffset))
+                headingOffset = sensorHeading - integrated.getHeading();
+            else
+                integrated.set(integrated.getX(), integrated.getY(), sensorHeading - headingOffset, 0);
+        }
+        updates++;
+
+        publish(integrated.getX(), integrated.getY(), integrated.getHeading(), System.nanoTime());
+    }
+
+    /**
+     * Publish a pose under the sequence lock, only ever called by one thread at a time
+     * @param x the x position
+     * @param y the y position
+     * @param heading the heading
+     * @param time the System.nanoTime() at which the pose was measured
+     */
+    private void publish(double x, double y, double heading, long time){
+        int start = sequence;
+        sequence = start + 1;
+        publishedX = x;
+        publishedY = y;
+        publishedHeading = heading;
+        publishedTime = time;
+        sequence = start + 2;
+    }
+
+    /**
+     * Copy the latest pose without blocking. Retries only if the localizer published a new pose
+     * while it was being copied.
+     * @param out the pose to fill in
+     * Postcondition: out holds a pose exactly as it was published
+     */
+    @Override
+    public final void getPose(Pose out){
+        while(true){
+            int start = sequence;
+            if((start & 1) == 0){
+                double x = publishedX;
+                double y = publishedY;
+                double heading = publishedHeading;
+                long time = publishedTime;
+                if(sequence == start){
+                    out.set(x, y, heading, time);
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Get the amount of updates made so far
+     * @return the amount of updates
+     */
+    public final long getUpdateCount(){
+        return updates;
+    }
+}
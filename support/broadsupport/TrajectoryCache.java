@@ -0,0 +1,154 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Persistent on-disk cache of compiled velocity tables.
+ * Each table is stored in its own binary file named after the fingerprint of the path it was
+ * compiled from, so changing any parameter of a path (or the drive configuration) makes it miss
+ * the cache and compile again. Files are read back through a memory-mapped buffer.
+ */
+public class TrajectoryCache {
+    /**
+     * Marks a file as a cached trajectory ("COYT")
+     */
+    private static final int MAGIC = 0x434F5954;
+
+    /**
+     * Version of the file layout, bump whenever the layout or the compiled velocities change
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header: magic, version, fingerprint, timestep, execute time, sample count
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 4;
+
+    /**
+     * Directory the cache files are kept in
+     */
+    private final File directory;
+
+    /**
+     * Create a cache backed by a directory, which is created when the first table is stored.
+     * @param directory the directory to keep the cache files in
+     */
+    public TrajectoryCache(File directory){
+        if(directory == null)
+            throw new RuntimeException("directory in TrajectoryCache.TrajectoryCache(...) must not be null!");
+        this.directory = directory;
+    }
+
+    /**
+     * Load the velocity table cached for a fingerprint into a path.
+     * A missing, stale or corrupt file is treated as a miss.
+     * @param path the path to install the table in
+     * @param fingerprint the fingerprint of the path, taken before it is built
+     * @return true if the table was loaded
+     * Postcondition: on a hit the path holds the cached table and will not compile when built
+     */
+    public final boolean load(Path path, long fingerprint){
+        File file = getFile(fingerprint);
+        if(!file.isFile())
+            return false;
+
+        try(RandomAccessFile input = new RandomAccessFile(file, "r");
+            FileChannel channel = input.getChannel()){
+            if(channel.size() < HEADER_BYTES)
+                return false;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint)
+                return false;
+
+            double timestep = buffer.getDouble();
+            double executeTime = buffer.getDouble();
+            int samples = buffer.getInt();
+            if(samples <= 0 || channel.size() != HEADER_BYTES + 4L*8*samples)
+                return false;
+
+            DoubleBuffer data = buffer.asDoubleBuffer();
+            double[] left = new double[samples];
+            double[] right = new double[samples];
+            double[] leftAngular = new double[samples];
+            double[] rightAngular = new double[samples];
+            data.get(left);
+            data.get(right);
+            data.get(leftAngular);
+            data.get(rightAngular);
+
+            path.setVelocityTable(new VelocityTable(timestep, executeTime, left, right, leftAngular, rightAngular));
+            return true;
+        }
+        catch(IOException | RuntimeException e){
+            return false;
+        }
+    }
+
+    /**
+     * Store the velocity table of a compiled path. The file is written next to its final name and
+     * then renamed, so a reader never sees a partially written table.
+     * @param path the compiled path
+     * @param fingerprint the fingerprint of the path, taken before it was built
+     * Precondition:  the path has a velocity table
+     * Postcondition: the table is cached, or left uncached if the file could not be written
+     */
+    public final void store(Path path, long fingerprint){
+        VelocityTable table = path.getVelocityTable();
+        if(table == null)
+            throw new RuntimeException("The path in TrajectoryCache.store(...) must be compiled!");
+
+        int samples = table.getSampleCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4*8*samples);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(fingerprint);
+        buffer.putDouble(table.getTimestep());
+        buffer.putDouble(table.getExecuteTime());
+        buffer.putInt(samples);
+
+        DoubleBuffer data = buffer.asDoubleBuffer();
+        data.put(table.getLeftVelocities());
+        data.put(table.getRightVelocities());
+        data.put(table.getLeftAngularVelocities());
+        data.put(table.getRightAngularVelocities());
+        buffer.position(0);
+
+        File temporary = null;
+        try{
+            if(!directory.isDirectory() && !directory.mkdirs())
+                return;
+            temporary = File.createTempFile("traj" + Long.toHexString(fingerprint), ".tmp", directory);
+            try(RandomAccessFile output = new RandomAccessFile(temporary, "rw");
+                FileChannel channel = output.getChannel()){
+                while(buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(true);
+            }
+            if(temporary.renameTo(getFile(fingerprint)))
+                temporary = null;
+        }
+        catch(IOException e){
+            // The cache is only an optimization, the path has already been compiled
+        }
+        finally{
+            if(temporary != null)
+                temporary.delete();
+        }
+    }
+
+    /**
+     * Get the file a fingerprint is cached in
+     * @param fingerprint the fingerprint of the path
+     * @return the cache file
+     */
+    private File getFile(long fingerprint){
+        return new File(directory, Long.toHexString(fingerprint) + ".traj");
+    }
+}
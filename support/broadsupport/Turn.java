@@ -7,6 +7,7 @@ import org.firstinspires.ftc.teamcode.auto.support.enumerations.PathType;
  * Program to turn a specified angle.
  * @author Tiernan Lindauer
  * Uses the Line Class and cleverly overrides the left motor velocity.
+ * The trapezoidal and S-curve profiles of Line limit the wheel velocity, acceleration and jerk along the turn.
  */
 public class Turn extends Line{
 
@@ -68,6 +69,19 @@ public class Turn extends Line{
         return getVelocity(currentTime)*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 1);
     }
 
+    /**
+     * Sample both side velocities so as to turn, computing the profile only once
+     * @param currentTime the current time
+     * @param command the holder to write the velocities to
+     */
+    @Override
+    protected final void sampleAnalytic(double currentTime, WheelCommand command){
+        double v = getVelocity(currentTime);
+        command.set(v*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 0),
+                v*velocityLookupTable(asymmetricalDriveCoefficientLookup, symmetricalDriveCoefficientLookup, 1),
+                0, 0, getCompleted());
+    }
+
     /**
      * Get what type of path this is. Useful for debugging
      * @return The type of path, in this case a turn.
@@ -0,0 +1,19 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * A motor the follower can command by velocity and read the velocity of, either a DcMotorEx
+ * through HardwareMotor or a simulated motor.
+ */
+public interface VelocityMotor {
+    /**
+     * read the measured angular velocity
+     * @return the velocity (rad/s)
+     */
+    double getVelocity();
+
+    /**
+     * command an angular velocity
+     * @param velocity the target velocity (rad/s)
+     */
+    void setVelocity(double velocity);
+}
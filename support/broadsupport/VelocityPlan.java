@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Fastest feasible velocity along a chain of segments, each with its own speed limit, under a
+ * maximum acceleration. A forward and a backward pass find the highest speed the robot can have
+ * at every junction while starting and ending at rest; each segment then accelerates, cruises at
+ * its limit if it can reach it, and decelerates into the next one.
+ */
+public class VelocityPlan {
+    /**
+     * Maximum acceleration and deceleration
+     */
+    private final double maxAcceleration;
+
+    // Per segment values, index i is segment i
+    /**
+     * Velocity entering each segment
+     */
+    private final double[] entryVelocities;
+    /**
+     * Highest velocity reached in each segment
+     */
+    private final double[] peakVelocities;
+    /**
+     * Time spent accelerating in each segment
+     */
+    private final double[] accelerationTimes;
+    /**
+     * Time spent cruising at the peak velocity in each segment
+     */
+    private final double[] cruiseTimes;
+    /**
+     * Time at which each segment ends
+     */
+    private final double[] endTimes;
+
+    /**
+     * Plan the velocities.
+     * @param distances the length of each segment (m)
+     * @param limits the highest velocity allowed anywhere in each segment (m/s)
+     * @param maxAcceleration the maximum acceleration and deceleration (m/s^2)
+     * Precondition:  distances and limits are the same, non-zero length, no distance is negative,
+     *                every limit and maxAcceleration is greater than zero
+     * Postcondition: the plan starts and ends at rest and never exceeds a limit or maxAcceleration
+     */
+    public VelocityPlan(double[] distances, double[] limits, double maxAcceleration){
+        if(distances == null || limits == null || distances.length == 0 || distances.length != limits.length)
+            throw new RuntimeException("distances and limits in VelocityPlan.VelocityPlan(...) must be the same, non-zero length!");
+        if(maxAcceleration <= 0)
+            throw new RuntimeException("maxAcceleration in VelocityPlan.VelocityPlan(...) must be greater than zero!");
+
+        int segments = distances.length;
+        this.maxAcceleration = maxAcceleration;
+
+        // Velocity at each junction, junction i is the start of segment i
+        double[] junctions = new double[segments+1];
+        junctions[0] = 0;
+        junctions[segments] = 0;
+        for(int i=1;i<segments;i++)
+            junctions[i] = Math.min(limits[i-1], limits[i]);
+
+        // Forward pass: cannot accelerate faster than maxAcceleration
+        for(int i=1;i<=segments;i++)
+            junctions[i] = Math.min(junctions[i], Math.sqrt(junctions[i-1]*junctions[i-1] + 2*maxAcceleration*distances[i-1]));
+        // Backward pass: must be able to brake in time
+        for(int i=segments-1;i>=0;i--)
+            junctions[i] = Math.min(junctions[i], Math.sqrt(junctions[i+1]*junctions[i+1] + 2*maxAcceleration*distances[i]));
+
+        entryVelocities = new double[segments];
+        peakVelocities = new double[segments];
+        accelerationTimes = new double[segments];
+        cruiseTimes = new double[segments];
+        endTimes = new double[segments];
+
+        double time = 0;
+        for(int i=0;i<segments;i++){
+            if(distances[i] < 0 || limits[i] <= 0)
+                throw new RuntimeException("Distances must not be negative and limits must be greater than zero in VelocityPlan.VelocityPlan(...)!");
+
+            double entry = junctions[i];
+            double exit = junctions[i+1];
+
+            // Highest velocity reachable when accelerating from entry and then braking to exit
+            double peak = Math.min(limits[i], Math.sqrt((2*maxAcceleration*distances[i] + entry*entry + exit*exit)/2));
+            peak = Math.max(peak, Math.max(entry, exit));
+
+            double accelerationDistance = (peak*peak - entry*entry)/(2*maxAcceleration);
+            double decelerationDistance = (peak*peak - exit*exit)/(2*maxAcceleration);
+            double cruiseDistance = Math.max(0, distances[i] - accelerationDistance - decelerationDistance);
+
+            entryVelocities[i] = entry;
+            peakVelocities[i] = peak;
+            accelerationTimes[i] = (peak - entry)/maxAcceleration;
+            cruiseTimes[i] = peak > 0 ? cruiseDistance/peak : 0;
+
+            time += accelerationTimes[i] + cruiseTimes[i] + (peak - exit)/maxAcceleration;
+            endTimes[i] = time;
+        }
+    }
+
+    /**
+     * Get the velocity within a segment
+     * @param segment the index of the segment
+     * @param segmentTime the time since the segment started
+     * @return the planned velocity
+     */
+    public final double getVelocity(int segment, double segmentTime){
+        if(segment < 0 || segment >= endTimes.length)
+            throw new RuntimeException("segment must be a valid index in VelocityPlan.getVelocity(...)!");
+
+        if(segmentTime < accelerationTimes[segment])
+            return entryVelocities[segment] + maxAcceleration*Math.max(segmentTime, 0);
+        segmentTime -= accelerationTimes[segment] + cruiseTimes[segment];
+        if(segmentTime <= 0)
+            return peakVelocities[segment];
+        return Math.max(0, peakVelocities[segment] - maxAcceleration*segmentTime);
+    }
+
+    /**
+     * Get the time at which a segment starts
+     * @param segment the index of the segment
+     * @return the start time
+     */
+    public final double getStartTime(int segment){
+        return segment == 0 ? 0 : endTimes[segment-1];
+    }
+
+    /**
+     * Get the time at which each segment ends
+     * @return a copy of the end times
+     */
+    public final double[] getEndTimes(){
+        return endTimes.clone();
+    }
+}
@@ -0,0 +1,217 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * A Path compiled into primitive lookup tables of wheel velocities sampled at a fixed timestep.
+ * Lookups linearly interpolate between the two nearest samples, so evaluating a path during a
+ * control cycle costs the same no matter how complex the analytic path is.
+ */
+public class VelocityTable {
+    /**
+     * Time between two consecutive samples (s)
+     */
+    private final double timestep;
+
+    /**
+     * Time it takes the compiled path to execute (s)
+     */
+    private final double executeTime;
+
+    // Sampled velocities, index i corresponds to the time i*timestep
+    /**
+     * Sampled left linear velocities
+     */
+    private final double[] leftVelocities;
+    /**
+     * Sampled right linear velocities
+     */
+    private final double[] rightVelocities;
+    /**
+     * Sampled left angular velocities
+     */
+    private final double[] leftAngularVelocities;
+    /**
+     * Sampled right angular velocities
+     */
+    private final double[] rightAngularVelocities;
+
+    /**
+     * Create a table from already sampled velocities.
+     * @param timestep the time between two consecutive samples
+     * @param executeTime the time it takes the path to execute
+     * @param leftVelocities the sampled left linear velocities
+     * @param rightVelocities the sampled right linear velocities
+     * @param leftAngularVelocities the sampled left angular velocities
+     * @param rightAngularVelocities the sampled right angular velocities
+     * Precondition:  timestep is greater than zero and every array has the same, non-zero length
+     */
+    public VelocityTable(double timestep, double executeTime, double[] leftVelocities, double[] rightVelocities,
+                         double[] leftAngularVelocities, double[] rightAngularVelocities){
+        if(timestep <= 0 || executeTime < 0)
+            throw new RuntimeException("The timestep must be greater than zero and the execute time must not be negative in VelocityTable.VelocityTable(...)!");
+        if(leftVelocities.length == 0 || rightVelocities.length != leftVelocities.length
+                || leftAngularVelocities.length != leftVelocities.length || rightAngularVelocities.length != leftVelocities.length)
+            throw new RuntimeException("Every sample array in VelocityTable.VelocityTable(...) must have the same, non-zero length!");
+
+        this.timestep = timestep;
+        this.executeTime = executeTime;
+        this.leftVelocities = leftVelocities;
+        this.rightVelocities = rightVelocities;
+        this.leftAngularVelocities = leftAngularVelocities;
+        this.rightAngularVelocities = rightAngularVelocities;
+    }
+
+    /**
+     * Sample the analytic velocity functions of a built path into a new table.
+     * @param path the path to sample
+     * @param timestep the time between two consecutive samples (s)
+     * @return the compiled table
+     * Precondition:  the path has its execute time computed and timestep is greater than zero
+     * Postcondition: one sample per timestep up to and including the first sample past the execute time
+     */
+    public static VelocityTable compile(Path path, double timestep){
+        if(path == null || timestep <= 0)
+            throw new RuntimeException("The path must not be null and the timestep must be greater than zero in VelocityTable.compile(...)!");
+
+        double executeTime = path.getExecuteTime();
+        int samples = (int) Math.ceil(executeTime/timestep) + 1;
+
+        double[] left = new double[samples];
+        double[] right = new double[samples];
+        double[] leftAngular = new double[samples];
+        double[] rightAngular = new double[samples];
+
+        for(int i=0;i<samples;i++){
+            double t = i*timestep;
+            left[i] = path.getLeftVelocity(t);
+            right[i] = path.getRightVelocity(t);
+            leftAngular[i] = path.getLeftAngularVelocity(t);
+            rightAngular[i] = path.getRightAngularVelocity(t);
+        }
+
+        return new VelocityTable(timestep, executeTime, left, right, leftAngular, rightAngular);
+    }
+
+    /**
+     * Linearly interpolate a sample array at a given time.
+     * @param samples the array to read
+     * @param currentTime the time into the path
+     * @return the interpolated value
+     */
+    private double interpolate(double[] samples, double currentTime){
+        double position = currentTime/timestep;
+        int i = (int) position;
+        if(i >= samples.length-1)
+            return samples[samples.length-1];
+        return samples[i] + (samples[i+1]-samples[i])*(position-i);
+    }
+
+    /**
+     * Interpolate every table at once, computing the sample position a single time.
+     * @param currentTime the time into the path
+     * @param command the holder to write the velocities to
+     * Postcondition: command holds the interpolated velocities and whether the path is complete
+     */
+    public final void sample(double currentTime, WheelCommand command){
+        if(isComplete(currentTime)){
+            command.set(0, 0, 0, 0, true);
+            return;
+        }
+
+        double position = currentTime/timestep;
+        int i = (int) position;
+        if(i >= leftVelocities.length-1){
+            i = leftVelocities.length-2;
+            position = i+1;
+        }
+        double fraction = position-i;
+
+        command.set(leftVelocities[i] + (leftVelocities[i+1]-leftVelocities[i])*fraction,
+                rightVelocities[i] + (rightVelocities[i+1]-rightVelocities[i])*fraction,
+                leftAngularVelocities[i] + (leftAngularVelocities[i+1]-leftAngularVelocities[i])*fraction,
+                rightAngularVelocities[i] + (rightAngularVelocities[i+1]-rightAngularVelocities[i])*fraction,
+                false);
+    }
+
+    /**
+     * Whether the compiled path has finished at a given time
+     * @param currentTime the time into the path
+     * @return true once the execute time has been reached
+     */
+    public final boolean isComplete(double currentTime){
+        return currentTime >= executeTime;
+    }
+
+    /**
+     * Get the interpolated left linear velocity
+     * @param currentTime the time into the path
+     * @return the left linear velocity
+     */
+    public final double getLeftVelocity(double currentTime){
+        return interpolate(leftVelocities, currentTime);
+    }
+
+    /**
+     * Get the interpolated right linear velocity
+     * @param currentTime the time into the path
+     * @return the right linear velocity
+     */
+    public final double getRightVelocity(double currentTime){
+        return interpolate(rightVelocities, currentTime);
+    }
+
+    /**
+     * Get the interpolated left angular velocity
+     * @param currentTime the time into the path
+     * @return the left angular velocity
+     */
+    public final double getLeftAngularVelocity(double currentTime){
+        return interpolate(leftAngularVelocities, currentTime);
+    }
+
+    /**
+     * Get the interpolated right angular velocity
+     * @param currentTime the time into the path
+     * @return the right angular velocity
+     */
+    public final double getRightAngularVelocity(double currentTime){
+        return interpolate(rightAngularVelocities, currentTime);
+    }
+
+    /**
+     * Get the time between two consecutive samples
+     * @return the timestep (s)
+     */
+    public final double getTimestep(){
+        return timestep;
+    }
+
+    /**
+     * Get the execute time of the compiled path
+     * @return the execute time (s)
+     */
+    public final double getExecuteTime(){
+        return executeTime;
+    }
+
+    // Raw sample arrays for TrajectoryCache, not copied so they must not be modified
+    final double[] getLeftVelocities(){
+        return leftVelocities;
+    }
+    final double[] getRightVelocities(){
+        return rightVelocities;
+    }
+    final double[] getLeftAngularVelocities(){
+        return leftAngularVelocities;
+    }
+    final double[] getRightAngularVelocities(){
+        return rightAngularVelocities;
+    }
+
+    /**
+     * Get the amount of samples in each array
+     * @return the sample count
+     */
+    public final int getSampleCount(){
+        return leftVelocities.length;
+    }
+}
@@ -0,0 +1,61 @@
+package org.firstinspires.ftc.teamcode.auto.support.broadsupport;
+
+/**
+ * Reusable holder for everything a Path commands at a single point in time.
+ * Create one per follower and pass it to Path.sample(...) every cycle so that no
+ * objects are allocated while following.
+ */
+public class WheelCommand {
+    /**
+     * Left linear velocity
+     */
+    private double leftVelocity;
+    /**
+     * Right linear velocity
+     */
+    private double rightVelocity;
+    /**
+     * Left angular velocity
+     */
+    private double leftAngularVelocity;
+    /**
+     * Right angular velocity
+     */
+    private double rightAngularVelocity;
+    /**
+     * Whether the sampled path has finished running
+     */
+    private boolean completed;
+
+    /**
+     * Overwrite every value of this command.
+     * @param leftVelocity the left linear velocity
+     * @param rightVelocity the right linear velocity
+     * @param leftAngularVelocity the left angular velocity
+     * @param rightAngularVelocity the right angular velocity
+     * @param completed whether the path has finished running
+     */
+    public final void set(double leftVelocity, double rightVelocity, double leftAngularVelocity, double rightAngularVelocity, boolean completed){
+        this.leftVelocity = leftVelocity;
+        this.rightVelocity = rightVelocity;
+        this.leftAngularVelocity = leftAngularVelocity;
+        this.rightAngularVelocity = rightAngularVelocity;
+        this.completed = completed;
+    }
+
+    public final double getLeftVelocity(){
+        return leftVelocity;
+    }
+    public final double getRightVelocity(){
+        return rightVelocity;
+    }
+    public final double getLeftAngularVelocity(){
+        return leftAngularVelocity;
+    }
+    public final double getRightAngularVelocity(){
+        return rightAngularVelocity;
+    }
+    public final boolean getCompleted(){
+        return completed;
+    }
+}
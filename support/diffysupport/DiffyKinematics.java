@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode.auto.support.diffysupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Kinematics;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.WheelCommand;
+
+/**
+ * Kinematics for a differential swerve: mixes each side's linear velocity and pod angular velocity
+ * into the two motors of that pod. The two motors of a pod spin its wheel when they turn opposite
+ * ways and turn the pod when they turn the same way, both through the pod's gear ratio.
+ * Both velocities are scaled by the same motor radians per meter of wheel travel, as they always
+ * have been, so pod angular velocities are not converted through the gear ratio on their own.
+ * Motors are ordered left front, left back, right front, right back.
+ */
+public class DiffyKinematics implements Kinematics {
+    /**
+     * Radius of the wheel (m)
+     */
+    private final double wheelRadius;
+    /**
+     * Motor radians per wheel (or pod) radian through the pod's gears
+     */
+    private final double gearRatio;
+
+    /**
+     * Create kinematics for a differential swerve
+     * @param wheelRadius the radius, NOT DIAMETER, of the wheel (m)
+     * @param gearRatio motor radians per wheel radian through the pod's gears
+     * Precondition:  wheelRadius and gearRatio are greater than zero
+     */
+    public DiffyKinematics(double wheelRadius, double gearRatio){
+        if(!(wheelRadius > 0 && gearRatio > 0))
+            throw new RuntimeException("wheelRadius and gearRatio in DiffyKinematics.DiffyKinematics(...) must be greater than zero!");
+        this.wheelRadius = wheelRadius;
+        this.gearRatio = gearRatio;
+    }
+
+    @Override
+    public final int getMotorCount(){
+        return 4;
+    }
+
+    /**
+     * Convert velocities into pod velocities
+     * NOTE: cannot rotate diffy swerve pod angles at this time
+     * @param command what the path commands at this time
+     * @param targets is filled with the left front, left back, right front and right back velocities
+     */
+    @Override
+    public final void toMotorVelocities(WheelCommand command, double[] targets){
+        double leftV = command.getLeftVelocity();
+        double rightV = command.getRightVelocity();
+        double leftPodV = command.getLeftAngularVelocity();
+        double rightPodV = command.getRightAngularVelocity();
+
+        // Motor radians per meter of wheel travel, the original 6.803/sqrt(2) with the template's ratio and wheels
+        double scale = gearRatio/wheelRadius;
+        targets[0] = scale*(leftPodV-leftV);
+        targets[1] = scale*(leftPodV+leftV);
+        targets[2] = scale*(rightPodV+rightV);
+        targets[3] = scale*(rightPodV-rightV);
+    }
+}
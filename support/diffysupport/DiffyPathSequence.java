@@ -1,14 +1,14 @@
 package org.firstinspires.ftc.teamcode.auto.support.diffysupport;
 
-import static org.firstinspires.ftc.robotcore.external.navigation.AngleUnit.RADIANS;
-
 import com.qualcomm.robotcore.hardware.DcMotorEx;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.KalmanFilter;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Clock;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.FollowerEngine;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.HardwareMotor;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Path;
-import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PIDController;
 import org.firstinspires.ftc.teamcode.auto.support.broadsupport.PathSequenceFather;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Robot;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.VelocityMotor;
 
 import java.util.ArrayList;
 
@@ -23,22 +23,25 @@ public class DiffyPathSequence extends PathSequenceFather {
     /**
      * Left frontmost motor
      */
-    private DcMotorEx leftFront;
+    private VelocityMotor leftFront;
     /**
      * Left backmost motor
      */
-    private DcMotorEx leftBack;
+    private VelocityMotor leftBack;
     /**
      * Right frontmost motor
      */
-    private DcMotorEx rightFront;
+    private VelocityMotor rightFront;
     /**
      * Right backmost motor
      */
-    private DcMotorEx rightBack;
+    private VelocityMotor rightBack;
+
+    /**
+     * Follows the paths on this drivetrain's motors
+     */
+    private final FollowerEngine engine;
 
-    private static final double SQRT_2 = 1.4142;
-    
     /**
      * Constructor for DiffyPathSequence.
      * @param d is the ArrayList of paths
@@ -49,26 +52,31 @@ public class DiffyPathSequence extends PathSequenceFather {
      * @param wheelR is the wheel's radius
      */
     public DiffyPathSequence(ArrayList<Path> d, DcMotorEx leftFront, DcMotorEx leftBack, DcMotorEx rightFront, DcMotorEx rightBack, double wheelR){
+        this(d, HardwareMotor.wrap(leftFront), HardwareMotor.wrap(leftBack), HardwareMotor.wrap(rightFront), HardwareMotor.wrap(rightBack), wheelR, Clock.SYSTEM);
+    }
+
+    /**
+     * Constructor for DiffyPathSequence.
+     * @param d is the ArrayList of paths
+     * @param leftFront is the front left motor - CHUB side is the front
+     * @param leftBack is the back left motor - CHUB side is the front
+     * @param rightFront is the front right motor - CHUB side is the front
+     * @param rightBack is the back right motor - CHUB side is the front
+     * @param wheelR is the wheel's radius
+     * @param clock the time to follow the paths against, such as a simulated clock
+     */
+    public DiffyPathSequence(ArrayList<Path> d, VelocityMotor leftFront, VelocityMotor leftBack, VelocityMotor rightFront, VelocityMotor rightBack, double wheelR, Clock clock){
         trajectory = d;
         wheelRadius = wheelR;
 
         this.leftFront = leftFront;
         this.leftBack = leftBack;
         this.rightFront = rightFront;
-        this.rightBack= rightBack;
-
-    }
+        this.rightBack = rightBack;
 
-    /**
-     * Convert a distance in meters (or a velocity) to radians
-     * @param meters the distance or velocity in meters
-     * @return the distance or velocity in radians
-     */
-    private double convertDistance(double meters){
-        return 6.803*meters;
+        engine = new FollowerEngine(new VelocityMotor[]{leftFront, leftBack, rightFront, rightBack}, new DiffyKinematics(wheelR, Robot.diffyGearRatio), clock);
     }
 
-
     /**
      * Actually moves the robot along the specified Paths.
      * Also adheres to InsertMarkers if any.
@@ -81,70 +89,6 @@ public class DiffyPathSequence extends PathSequenceFather {
         if(!(leftFront != null && leftBack != null && rightFront != null && rightBack != null))
             throw new RuntimeException("All motor objects in DiffyPathSequence.follow() must not be null!");
 
-        ElapsedTime t = new ElapsedTime();
-        t.reset();
-
-        // Go through every path in the trajectory
-        for(Path path : trajectory){
-            // Make sure the path is built
-            if(!path.getBuilt())
-                path.build();
-
-            // Create kalman filter and PID objects
-            KalmanFilter kLeft1 = new KalmanFilter();
-            PIDController pidLeft1 = new PIDController();
-
-            KalmanFilter kLeft2 = new KalmanFilter();
-            PIDController pidLeft2 = new PIDController();
-
-            KalmanFilter kRight1 = new KalmanFilter();
-            PIDController pidRight1 = new PIDController();
-
-            KalmanFilter kRight2 = new KalmanFilter();
-            PIDController pidRight2 = new PIDController();
-
-
-            // Used to only consider the time into this individual path
-            double offset = t.milliseconds();
-
-            // Execute the path
-            while(!path.getCompleted()){
-                // Get the velocities from what the path says the end result velocities should be
-                double leftV = path.getLeftVelocity((t.milliseconds()-offset)/1000);
-                double rightV = path.getRightVelocity((t.milliseconds()-offset)/1000);
-                double leftPodV = path.getLeftAngularVelocity((t.milliseconds()-offset)/1000);
-                double rightPodV = path.getRightAngularVelocity((t.milliseconds()-offset)/1000);
-
-                // Convert velocities into pod velocities
-                double leftFrontTargetV = convertDistance((leftPodV-leftV)/SQRT_2);
-                double leftBackTargetV = convertDistance((leftPodV+leftV)/SQRT_2);
-
-                double rightFrontTargetV = convertDistance((rightPodV+rightV)/SQRT_2);
-                double rightBackTargetV = convertDistance((rightPodV-rightV)/SQRT_2);
-
-
-//                // Convert the velocities into pod velocities
-//                double leftFrontTargetV = convertDistance(-leftV);
-//                double leftBackTargetV = convertDistance(leftV);
-//                double rightFrontTargetV = convertDistance(-rightV);
-//                double rightBackTargetV = convertDistance(rightV);
-//
-//                // Correct using PID loop and Kalman Filter
-                double corL1 = pidLeft1.update((long)leftFrontTargetV, (long)kLeft1.filter(leftFront.getVelocity(RADIANS)));
-                double corL2 = pidLeft2.update((long)leftBackTargetV, (long)kLeft2.filter(leftBack.getVelocity(RADIANS)));
-                double corR1 = pidRight1.update((long)rightFrontTargetV, (long)kRight1.filter(rightFront.getVelocity(RADIANS)));
-                double corR2 = pidRight2.update((long)rightBackTargetV, (long)kRight2.filter(rightBack.getVelocity(RADIANS)));
-//
-//                // Write the corrected velocities to the motors
-                leftFront.setVelocity(leftFrontTargetV+corL1, RADIANS);
-                leftBack.setVelocity(leftBackTargetV+corL2, RADIANS);
-                rightFront.setVelocity(rightFrontTargetV+corR1, RADIANS);
-                rightBack.setVelocity(rightBackTargetV+corR2, RADIANS);
-
-
-            }
-            // Set each path back to an unused state so the trajectory could be run again
-            resetPaths();
-        }
+        engine.follow(this);
     }
 }
@@ -0,0 +1,23 @@
+package org.firstinspires.ftc.teamcode.auto.support.enumerations;
+
+/**
+ * Enumeration of the parts of a follower cycle a LoopProfiler times.
+ */
+public enum LoopPhase {
+    /**
+     * The whole period from the start of one cycle to the start of the next
+     */
+    LOOP,
+    /**
+     * Sampling the path, markers, pose correction and kinematics
+     */
+    TRAJECTORY,
+    /**
+     * Kalman filtering and the PIDF controllers
+     */
+    CONTROL,
+    /**
+     * Reading and writing the motors
+     */
+    IO
+}
@@ -0,0 +1,19 @@
+package org.firstinspires.ftc.teamcode.auto.support.enumerations;
+
+/**
+ * Enumeration to specify the velocity profile a Line or Turn follows.
+ */
+public enum ProfileType {
+    /**
+     * Half a sine wave, never holds the maximum velocity. Used as default.
+     */
+    SINE,
+    /**
+     * Constant acceleration up to the maximum velocity, cruise, then constant deceleration.
+     */
+    TRAPEZOIDAL,
+    /**
+     * Trapezoidal profile with a limited jerk so that the acceleration ramps smoothly.
+     */
+    SCURVE
+}
@@ -0,0 +1,16 @@
+package org.firstinspires.ftc.teamcode.auto.support.enumerations;
+
+/**
+ * Enumeration to specify how far into a Path a progress marker runs.
+ */
+public enum ProgressType {
+    /**
+     * Fraction of the time the path takes to follow
+     */
+    TIME,
+    /**
+     * Fraction of the planned distance the wheels travel along the path, from the commanded
+     * velocities rather than what the wheels measure
+     */
+    DISTANCE
+}
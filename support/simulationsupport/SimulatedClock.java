@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.auto.support.simulationsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Clock;
+
+import java.util.ArrayList;
+
+/**
+ * Simulated time for following paths headless. Every reading moves time forward by one loop period
+ * and steps the simulated devices up to the new time, so the follower, which reads the clock once
+ * per cycle, runs in lockstep with the simulation as fast as the computer allows.
+ * The same loop period and devices always give the same run, which makes results repeatable.
+ */
+public class SimulatedClock implements Clock {
+    /**
+     * Simulated time each reading advances by (ns)
+     */
+    private final long loopNanos;
+    /**
+     * Longest step the devices are advanced by (ns)
+     */
+    private final long stepNanos;
+    /**
+     * Current simulated time (ns)
+     */
+    private long now = 0;
+    /**
+     * Devices stepped as time advances, in the order they were added
+     */
+    private final ArrayList<SimulatedDevice> devices = new ArrayList<>();
+
+    /**
+     * Create a clock at time zero
+     * @param loopPeriod the simulated time of one follower cycle (s), the Control Hub takes a few ms
+     * @param stepPeriod the longest physics step (s), no longer than loopPeriod
+     * Precondition:  0 < stepPeriod <= loopPeriod
+     */
+    public SimulatedClock(double loopPeriod, double stepPeriod){
+        if(!(stepPeriod > 0) || stepPeriod > loopPeriod)
+            throw new RuntimeException("stepPeriod in SimulatedClock.SimulatedClock(...) must be greater than zero and no longer than loopPeriod!");
+        this.loopNanos = (long)(loopPeriod*1E9);
+        this.stepNanos = Math.max(1, (long)(stepPeriod*1E9));
+    }
+
+    /**
+     * Step a device whenever time advances
+     * @param device the device
+     */
+    public final void addDevice(SimulatedDevice device){
+        if(device == null)
+            throw new RuntimeException("device in SimulatedClock.addDevice(...) must not be null!");
+        devices.add(device);
+    }
+
+    /**
+     * Advance by one loop period and read the time
+     * @return the simulated time (ns)
+     */
+    @Override
+    public final long nanoTime(){
+        advance(loopNanos);
+        return now;
+    }
+
+    /**
+     * Advance time without it being read, stepping every device
+     * @param nanos the time to advance (ns)
+     */
+    public final void advance(long nanos){
+        long end = now + nanos;
+        while(now < end){
+            long step = Math.min(stepNanos, end - now);
+            double dt = step/1E9;
+            for(int i=0;i<devices.size();i++)
+                devices.get(i).step(dt);
+            now += step;
+        }
+    }
+
+    /**
+     * Get the simulated time without advancing it
+     * @return the simulated time (s)
+     */
+    public final double getSeconds(){
+        return now/1E9;
+    }
+}
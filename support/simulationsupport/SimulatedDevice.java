@@ -0,0 +1,12 @@
+package org.firstinspires.ftc.teamcode.auto.support.simulationsupport;
+
+/**
+ * Anything simulated that a SimulatedClock moves forward in time.
+ */
+public interface SimulatedDevice {
+    /**
+     * advance the simulation, called with small fixed steps
+     * @param dt the time to advance (s)
+     */
+    void step(double dt);
+}
@@ -0,0 +1,128 @@
+package org.firstinspires.ftc.teamcode.auto.support.simulationsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Localizer;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Pose;
+
+/**
+ * A simulated differential swerve with a pod on each side. The two motors of a pod drive its wheel
+ * when they turn opposite ways and turn the pod when they turn the same way, both through the pod's
+ * gears, and the wheel rolls its radius in meters per radian. Each wheel pushes the robot along the
+ * direction its pod points. Reports the true pose as a Localizer.
+ */
+public class SimulatedDiffyDrive implements SimulatedDevice, Localizer {
+    /**
+     * Radius of the wheels (m)
+     */
+    private final double wheelRadius;
+    /**
+     * Motor radians per wheel (or pod) radian through the pod's gears
+     */
+    private final double gearRatio;
+
+    /**
+     * Motors, ordered left front, left back, right front, right back
+     */
+    private final SimulatedMotor[] motors;
+    /**
+     * Distance between the two pods (m)
+     */
+    private final double trackWidth;
+    /**
+     * Angle of each pod from the robot's forward direction (rad)
+     */
+    private double leftPodAngle = 0, rightPodAngle = 0;
+    /**
+     * True pose of the robot
+     */
+    private final Pose pose = new Pose();
+    /**
+     * Time since the drive was created (s)
+     */
+    private double time = 0;
+
+    /**
+     * Create a drivetrain at the origin facing along the x axis with both pods facing forward
+     * @param leftFront the front motor of the left pod
+     * @param leftBack the back motor of the left pod
+     * @param rightFront the front motor of the right pod
+     * @param rightBack the back motor of the right pod
+     * @param wheelRadius the radius of the wheels (m)
+     * @param gearRatio motor radians per wheel (or pod) radian through the pod's gears
+     * @param trackWidth the distance between the two pods (m)
+     * Precondition:  no motor is null, wheelRadius, gearRatio and trackWidth are greater than zero
+     */
+    public SimulatedDiffyDrive(SimulatedMotor leftFront, SimulatedMotor leftBack, SimulatedMotor rightFront,
+                               SimulatedMotor rightBack, double wheelRadius, double gearRatio, double trackWidth){
+        if(leftFront == null || leftBack == null || rightFront == null || rightBack == null)
+            throw new RuntimeException("Motors in SimulatedDiffyDrive.SimulatedDiffyDrive(...) must not be null!");
+        if(!(wheelRadius > 0 && gearRatio > 0 && trackWidth > 0))
+            throw new RuntimeException("wheelRadius, gearRatio and trackWidth in SimulatedDiffyDrive.SimulatedDiffyDrive(...) must be greater than zero!");
+        this.wheelRadius = wheelRadius;
+        this.gearRatio = gearRatio;
+        this.motors = new SimulatedMotor[]{leftFront, leftBack, rightFront, rightBack};
+        this.trackWidth = trackWidth;
+    }
+
+    /**
+     * Get every motor in the order DiffyPathSequence takes them
+     * @return the left front, left back, right front and right back motors
+     */
+    public final SimulatedMotor[] getMotors(){
+        return motors.clone();
+    }
+
+    /**
+     * Move the robot without it driving there
+     * @param x the x position (m)
+     * @param y the y position (m)
+     * @param heading the heading (rad)
+     */
+    public final void setPose(double x, double y, double heading){
+        pose.set(x, y, heading, (long)(time*1E9));
+    }
+
+    /**
+     * Get the angle of a pod
+     * @param right true for the right pod
+     * @return the angle from the robot's forward direction (rad)
+     */
+    public final double getPodAngle(boolean right){
+        return right ? rightPodAngle : leftPodAngle;
+    }
+
+    /**
+     * Step the motors, turn the pods and move the robot by how far each wheel rolled
+     * @param dt the time to advance (s)
+     */
+    @Override
+    public final void step(double dt){
+        for(SimulatedMotor motor : motors)
+            motor.step(dt);
+        // Half the difference of a pod's motors spins its wheel, half the sum turns the pod
+        double scale = 1/(2*gearRatio);
+        double leftSpeed = (motors[1].getTrueVelocity() - motors[0].getTrueVelocity())*scale*wheelRadius;
+        double leftTurn = (motors[0].getTrueVelocity() + motors[1].getTrueVelocity())*scale;
+        double rightSpeed = (motors[2].getTrueVelocity() - motors[3].getTrueVelocity())*scale*wheelRadius;
+        double rightTurn = (motors[2].getTrueVelocity() + motors[3].getTrueVelocity())*scale;
+
+        // Wheel travel in the robot frame, the left pod on the left side
+        double leftForward = leftSpeed*Math.cos(leftPodAngle)*dt;
+        double leftSide = leftSpeed*Math.sin(leftPodAngle)*dt;
+        double rightForward = rightSpeed*Math.cos(rightPodAngle)*dt;
+        double rightSide = rightSpeed*Math.sin(rightPodAngle)*dt;
+
+        pose.move((leftForward + rightForward)/2, (leftSide + rightSide)/2, (rightForward - leftForward)/trackWidth);
+        leftPodAngle += leftTurn*dt;
+        rightPodAngle += rightTurn*dt;
+        time += dt;
+    }
+
+    /**
+     * Copy the true pose, stamped with simulated time
+     * @param out the pose to fill in
+     */
+    @Override
+    public final void getPose(Pose out){
+        out.set(pose.getX(), pose.getY(), pose.getHeading(), (long)(time*1E9));
+    }
+}
@@ -0,0 +1,275 @@
+package org.firstinspires.ftc.teamcode.auto.support.simulationsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.VelocityMotor;
+
+/**
+ * A brushed DC motor run in velocity mode by a hub, for following paths without a robot.
+ *
+ * The motor is modeled from its free speed and stall torque: torque falls linearly with speed and
+ * scales with the voltage, which the battery limits. It turns a fixed inertia, the share of the
+ * robot's mass it moves reflected onto its shaft, against Coulomb friction. The hub's velocity
+ * loop is feedforward plus proportional control on the encoder velocity.
+ * The follower only ever sees what the real hardware would give it: encoder counts quantized to
+ * whole ticks, velocity measured over a window of those counts, and both reads and commands delayed
+ * by a bus latency.
+ */
+public class SimulatedMotor implements VelocityMotor, SimulatedDevice {
+    /**
+     * Amount of past samples and commands kept for latency and velocity measurement
+     */
+    private static final int HISTORY = 1024;
+
+    // Motor model
+    /**
+     * Speed with no load at the nominal voltage (rad/s)
+     */
+    private final double freeSpeed;
+    /**
+     * Torque with the shaft held still at the nominal voltage (N m)
+     */
+    private final double stallTorque;
+    /**
+     * Voltage freeSpeed and stallTorque are rated at (V)
+     */
+    private final double nominalVoltage;
+    /**
+     * Inertia the motor turns (kg m^2)
+     */
+    private final double inertia;
+    /**
+     * Encoder ticks per radian of output shaft
+     */
+    private final double ticksPerRadian;
+    /**
+     * Delay between the follower and the hub, applied to reads and commands (s)
+     */
+    private final double latency;
+
+    /**
+     * Coulomb friction torque (N m)
+     */
+    private double friction = 0;
+    /**
+     * Battery voltage limiting the output (V)
+     */
+    private double batteryVoltage;
+    /**
+     * Time encoder velocity is measured over (s)
+     */
+    private double velocityWindow = 0.02;
+    /**
+     * Proportional gain of the hub's velocity loop (V per rad/s)
+     */
+    private double kP;
+
+    // State
+    /**
+     * Shaft angle (rad)
+     */
+    private double angle = 0;
+    /**
+     * Shaft angular velocity (rad/s)
+     */
+    private double omega = 0;
+    /**
+     * Time since the motor was created (s)
+     */
+    private double time = 0;
+
+    // Ring buffers, the newest entry is at head
+    /**
+     * Times and encoder counts of past steps
+     */
+    private final double[] sampleTimes = new double[HISTORY];
+    private final long[] sampleTicks = new long[HISTORY];
+    private int sampleHead = 0, sampleCount = 0;
+    /**
+     * Times and targets of past commands
+     */
+    private final double[] commandTimes = new double[HISTORY];
+    private final double[] commandValues = new double[HISTORY];
+    private int commandHead = 0, commandCount = 0;
+
+    /**
+     * Create a motor at rest
+     * @param freeSpeed speed with no load at the nominal voltage (rad/s)
+     * @param stallTorque torque with the shaft held still at the nominal voltage (N m)
+     * @param nominalVoltage voltage freeSpeed and stallTorque are rated at (V)
+     * @param inertia inertia the motor turns (kg m^2)
+     * @param ticksPerRevolution encoder ticks per revolution of the output shaft
+     * @param latency delay on reads and commands (s)
+     * Precondition:  every value is greater than zero except latency, which is not negative
+     */
+    public SimulatedMotor(double freeSpeed, double stallTorque, double nominalVoltage, double inertia,
+                          double ticksPerRevolution, double latency){
+        if(!(freeSpeed > 0 && stallTorque > 0 && nominalVoltage > 0 && inertia > 0 && ticksPerRevolution > 0 && latency >= 0))
+            throw new RuntimeException("Motor constants in SimulatedMotor.SimulatedMotor(...) must be greater than zero!");
+        this.freeSpeed = freeSpeed;
+        this.stallTorque = stallTorque;
+        this.nominalVoltage = nominalVoltage;
+        this.inertia = inertia;
+        this.ticksPerRadian = ticksPerRevolution/(2*Math.PI);
+        this.latency = latency;
+        this.batteryVoltage = nominalVoltage;
+        this.kP = 5*nominalVoltage/freeSpeed;
+        record();
+    }
+
+    /**
+     * Set the Coulomb friction the motor works against
+     * @param friction the friction torque (N m)
+     */
+    public final void setFriction(double friction){
+        this.friction = Math.abs(friction);
+    }
+
+    /**
+     * Set the battery voltage, which limits how fast and hard the motor can drive
+     * @param batteryVoltage the voltage (V)
+     */
+    public final void setBatteryVoltage(double batteryVoltage){
+        this.batteryVoltage = Math.abs(batteryVoltage);
+    }
+
+    /**
+     * Set the window encoder velocity is measured over
+     * @param velocityWindow the window (s)
+     */
+    public final void setVelocityWindow(double velocityWindow){
+        if(!(velocityWindow > 0))
+            throw new RuntimeException("velocityWindow in SimulatedMotor.setVelocityWindow(...) must be greater than zero!");
+        this.velocityWindow = velocityWindow;
+    }
+
+    /**
+     * Set the proportional gain of the hub's velocity loop
+     * @param kP the gain (V per rad/s)
+     */
+    public final void setVelocityGain(double kP){
+        this.kP = kP;
+    }
+
+    /**
+     * Command a velocity, applied by the hub once the latency has passed
+     * @param velocity the target velocity (rad/s)
+     */
+    @Override
+    public final void setVelocity(double velocity){
+        commandHead = (commandHead + 1) % HISTORY;
+        commandTimes[commandHead] = time;
+        commandValues[commandHead] = velocity;
+        commandCount = Math.min(commandCount + 1, HISTORY);
+    }
+
+    /**
+     * Read the velocity measured by the encoder, as it was one latency ago
+     * @return the measured velocity (rad/s)
+     */
+    @Override
+    public final double getVelocity(){
+        return encoderVelocity(time - latency);
+    }
+
+    /**
+     * Read the encoder count as it was one latency ago
+     * @return the count (ticks)
+     */
+    public final long getCurrentPosition(){
+        return sampleTicks[sampleAt(time - latency)];
+    }
+
+    /**
+     * Get the true shaft velocity, which the follower cannot see
+     * @return the velocity (rad/s)
+     */
+    public final double getTrueVelocity(){
+        return omega;
+    }
+
+    /**
+     * Get the true shaft angle, which the follower cannot see
+     * @return the angle (rad)
+     */
+    public final double getAngle(){
+        return angle;
+    }
+
+    /**
+     * Advance the hub's velocity loop and the motor's motion
+     * @param dt the time to advance (s)
+     */
+    @Override
+    public final void step(double dt){
+        // The hub controls on its own encoder reading, which has no bus latency
+        double target = appliedCommand(time - latency);
+        double voltage = (nominalVoltage/freeSpeed)*target + kP*(target - encoderVelocity(time));
+        voltage = Math.max(-batteryVoltage, Math.min(batteryVoltage, voltage));
+
+        double drive = stallTorque*(voltage/nominalVoltage - omega/freeSpeed);
+        double newOmega;
+        if(omega == 0 && Math.abs(drive) <= friction)
+            newOmega = 0;
+        else{
+            double torque = drive - Math.copySign(friction, omega != 0 ? omega : drive);
+            newOmega = omega + torque/inertia*dt;
+            // Friction stops the shaft rather than reversing it
+            if(omega != 0 && Math.signum(newOmega) != Math.signum(omega) && Math.abs(drive) <= friction)
+                newOmega = 0;
+        }
+        omega = newOmega;
+        angle += omega*dt;
+        time += dt;
+        record();
+    }
+
+    /**
+     * Store the encoder count at the current time
+     */
+    private void record(){
+        sampleHead = (sampleHead + 1) % HISTORY;
+        sampleTimes[sampleHead] = time;
+        sampleTicks[sampleHead] = (long)Math.floor(angle*ticksPerRadian);
+        sampleCount = Math.min(sampleCount + 1, HISTORY);
+    }
+
+    /**
+     * Find the newest sample taken at or before a time
+     * @param at the time (s)
+     * @return the index of the sample, the oldest kept if every sample is newer
+     */
+    private int sampleAt(double at){
+        int index = sampleHead;
+        for(int i=1;i<sampleCount && sampleTimes[index] > at;i++)
+            index = (index - 1 + HISTORY) % HISTORY;
+        return index;
+    }
+
+    /**
+     * Measure velocity from the encoder counts over the window ending at a time
+     * @param at the end of the window (s)
+     * @return the velocity (rad/s), 0 before two samples fit the window
+     */
+    private double encoderVelocity(double at){
+        int end = sampleAt(at);
+        int start = sampleAt(sampleTimes[end] - velocityWindow);
+        double span = sampleTimes[end] - sampleTimes[start];
+        if(span <= 0)
+            return 0;
+        return (sampleTicks[end] - sampleTicks[start])/span/ticksPerRadian;
+    }
+
+    /**
+     * Find the newest command sent at or before a time
+     * @param at the time (s)
+     * @return the target velocity (rad/s), 0 if nothing had been commanded yet
+     */
+    private double appliedCommand(double at){
+        int index = commandHead;
+        for(int i=0;i<commandCount;i++){
+            if(commandTimes[index] <= at)
+                return commandValues[index];
+            index = (index - 1 + HISTORY) % HISTORY;
+        }
+        return 0;
+    }
+}
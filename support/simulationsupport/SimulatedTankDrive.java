@@ -0,0 +1,113 @@
+package org.firstinspires.ftc.teamcode.auto.support.simulationsupport;
+
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Localizer;
+import org.firstinspires.ftc.teamcode.auto.support.broadsupport.Pose;
+
+/**
+ * A simulated 2, 4 or 6 wheel drivetrain. Steps its motors and moves the robot by the average
+ * wheel speed of each side, and reports the true pose as a Localizer.
+ * Each wheel rolls its radius in meters per radian it turns, and turns through a gear ratio per
+ * radian its motor turns, so any error in how the follower converts path velocities to motor
+ * velocities shows up as the robot driving the wrong distance.
+ */
+public class SimulatedTankDrive implements SimulatedDevice, Localizer {
+    /**
+     * Motors on each side
+     */
+    private final SimulatedMotor[] left, right;
+    /**
+     * Radius of the wheels, the distance a wheel rolls per radian (m)
+     */
+    private final double wheelRadius;
+    /**
+     * Motor radians per wheel radian
+     */
+    private final double gearRatio;
+    /**
+     * Distance between the left and right wheels (m)
+     */
+    private final double trackWidth;
+    /**
+     * True pose of the robot
+     */
+    private final Pose pose = new Pose();
+    /**
+     * Time since the drive was created (s)
+     */
+    private double time = 0;
+
+    /**
+     * Create a drivetrain at the origin facing along the x axis
+     * @param left the left motors
+     * @param right the right motors
+     * @param wheelRadius the radius of the wheels (m)
+     * @param gearRatio motor radians per wheel radian
+     * @param trackWidth the distance between the left and right wheels (m)
+     * Precondition:  each side has at least one motor, wheelRadius, gearRatio and trackWidth are
+     *                greater than zero
+     */
+    public SimulatedTankDrive(SimulatedMotor[] left, SimulatedMotor[] right, double wheelRadius, double gearRatio,
+                              double trackWidth){
+        if(left == null || right == null || left.length < 1 || right.length < 1)
+            throw new RuntimeException("Each side in SimulatedTankDrive.SimulatedTankDrive(...) must have at least one motor!");
+        if(!(wheelRadius > 0 && gearRatio > 0 && trackWidth > 0))
+            throw new RuntimeException("wheelRadius, gearRatio and trackWidth in SimulatedTankDrive.SimulatedTankDrive(...) must be greater than zero!");
+        this.left = left.clone();
+        this.right = right.clone();
+        this.wheelRadius = wheelRadius;
+        this.gearRatio = gearRatio;
+        this.trackWidth = trackWidth;
+    }
+
+    /**
+     * Get every motor in the order the path sequences take them: left motors, then right motors
+     * @return the motors
+     */
+    public final SimulatedMotor[] getMotors(){
+        SimulatedMotor[] motors = new SimulatedMotor[left.length + right.length];
+        System.arraycopy(left, 0, motors, 0, left.length);
+        System.arraycopy(right, 0, motors, left.length, right.length);
+        return motors;
+    }
+
+    /**
+     * Move the robot without it driving there
+     * @param x the x position (m)
+     * @param y the y position (m)
+     * @param heading the heading (rad)
+     */
+    public final void setPose(double x, double y, double heading){
+        pose.set(x, y, heading, (long)(time*1E9));
+    }
+
+    /**
+     * Step the motors, then move the robot by how far each side's wheels turned
+     * @param dt the time to advance (s)
+     */
+    @Override
+    public final void step(double dt){
+        double leftSpeed = 0, rightSpeed = 0;
+        for(SimulatedMotor motor : left){
+            motor.step(dt);
+            leftSpeed += motor.getTrueVelocity();
+        }
+        for(SimulatedMotor motor : right){
+            motor.step(dt);
+            rightSpeed += motor.getTrueVelocity();
+        }
+        double leftDistance = leftSpeed/left.length/gearRatio*wheelRadius*dt;
+        double rightDistance = rightSpeed/right.length/gearRatio*wheelRadius*dt;
+
+        pose.move((leftDistance + rightDistance)/2, 0, (rightDistance - leftDistance)/trackWidth);
+        time += dt;
+    }
+
+    /**
+     * Copy the true pose, stamped with simulated time
+     * @param out the pose to fill in
+     */
+    @Override
+    public final void getPose(Pose out){
+        out.set(pose.getX(), pose.getY(), pose.getHeading(), (long)(time*1E9));
+    }
+}